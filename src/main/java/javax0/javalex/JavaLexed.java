@@ -1,8 +1,8 @@
 package javax0.javalex;
 
-
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -19,18 +19,166 @@ import java.util.function.BiFunction;
  * Source object returning the borrowed content.</p>
  */
 public class JavaLexed implements AutoCloseable {
-    private final StringBuilder source = new StringBuilder();
-    private final ArrayList<javax0.javalex.LexicalElement> lexicalElements;
+    private CharSequence source;
+    private javax0.javalex.lex.TokenStore lexicalElements;
     private boolean isOpen = true;
 
     public JavaLexed(String source) {
-        this.source.append(source);
-        lexicalElements = new ArrayList<>(
-                Arrays.asList(
-                        new javax0.javalex.lex.Lexer()
-                                .spaceSensitive()
-                                .commentSensitive()
-                                .apply(source)));
+        this((CharSequence) source);
+    }
+
+    /**
+     * The lexical elements are kept in a {@link
+     * javax0.javalex.lex.TokenStore}, which refers to the ranges of the
+     * source and creates the lexical element objects only when they are
+     * requested.
+     *
+     * @param source the Java source code
+     */
+    private JavaLexed(CharSequence source) {
+        this(javax0.javalex.lex.Lexer.shared(true, true).tokenize(source));
+    }
+
+    private JavaLexed(javax0.javalex.lex.TokenStore lexicalElements) {
+        this.source = lexicalElements.source();
+        this.lexicalElements = lexicalElements;
+    }
+
+    /**
+     * <p>Create a {@code JavaLexed} object from a UTF-8 encoded Java
+     * source file.</p>
+     *
+     * <p>The lexical analysis reads the content of the file without
+     * creating an intermediate {@code String} of the whole file. Large
+     * files are mapped into the memory and they stay mapped until the
+     * object is closed and garbage collected, the file must not be
+     * modified or truncated meanwhile. See {@link
+     * javax0.javalex.lex.MappedSource}.</p>
+     *
+     * @param path the Java source file
+     * @return the new object containing the lexical elements of the file
+     * @throws IOException if the file cannot be read or it is not UTF-8
+     *                     encoded
+     */
+    public static JavaLexed of(Path path) throws IOException {
+        return new JavaLexed(javax0.javalex.lex.MappedSource.map(path));
+    }
+
+    /**
+     * <p>Create a {@code JavaLexed} object from a UTF-8 encoded Java
+     * source file using a cache of the lexical analysis.</p>
+     *
+     * <p>The file is analyzed only if the cache has no entry for its
+     * content, see {@link javax0.javalex.lex.TokenCache}.</p>
+     *
+     * @param path  the Java source file
+     * @param cache the cache to look up and to store the analysis in
+     * @return the new object containing the lexical elements of the file
+     * @throws IOException if the file cannot be read or it is not UTF-8
+     *                     encoded
+     */
+    public static JavaLexed of(Path path, javax0.javalex.lex.TokenCache cache) throws IOException {
+        return new JavaLexed(cache.tokenize(path, javax0.javalex.lex.Lexer.shared(true, true)));
+    }
+
+    /**
+     * <p>Create a {@code JavaLexed} object from a UTF-8 encoded Java
+     * source held in a byte buffer.</p>
+     *
+     * <p>The bytes are not decoded into a {@code String} when the
+     * source is ASCII, the lexemes are created from the byte ranges
+     * when the elements are first requested. A leading byte order mark
+     * is skipped.</p>
+     *
+     * @param source the source from the position to the limit of the
+     *               buffer, which must not be modified until the object
+     *               is closed
+     * @return the new object containing the lexical elements
+     * @throws IllegalArgumentException if the source is not valid
+     *                                  UTF-8
+     */
+    public static JavaLexed of(ByteBuffer source) {
+        return new JavaLexed(javax0.javalex.lex.Utf8Source.of(source));
+    }
+
+    /**
+     * <p>Create a {@code JavaLexed} object using the lexical elements
+     * already in a store.</p>
+     *
+     * <p>The store is used, not copied, the modifications of the
+     * {@code JavaLexed} object modify the store. An off-heap store (see
+     * {@link javax0.javalex.lex.TokenStore#offHeap()}) can be read and
+     * matched, but it cannot be modified. The store is not closed when
+     * the {@code JavaLexed} object is closed.</p>
+     *
+     * @param lexicalElements the store of the lexical elements and the
+     *                        source
+     * @return the new object containing the lexical elements of the
+     * store
+     */
+    public static JavaLexed of(javax0.javalex.lex.TokenStore lexicalElements) {
+        return new JavaLexed(lexicalElements);
+    }
+
+    /**
+     * <p>Create a {@code JavaLexed} object from a file saved by {@link
+     * #write(Path)}.</p>
+     *
+     * <p>The source is not analyzed again, see {@link
+     * javax0.javalex.lex.Lexer#load(Path)}. A large file stays mapped
+     * into the memory until the object is closed and garbage
+     * collected.</p>
+     *
+     * @param path the file written by {@link #write(Path)}
+     * @return the new object containing the saved source and lexical
+     * elements
+     * @throws IOException if the file cannot be read or it is not a
+     *                     valid token file
+     */
+    public static JavaLexed load(Path path) throws IOException {
+        return new JavaLexed(javax0.javalex.lex.Lexer.shared(true, true).load(path));
+    }
+
+    /**
+     * <p>Save the source and the lexical elements into a file in a
+     * compact binary format, so that they can be loaded by {@link
+     * #load(Path)} without analyzing the source again.</p>
+     *
+     * <p>Only the original state can be saved. After the lexical
+     * elements were modified they are not in sync with the source.</p>
+     *
+     * @param path the file to write, it is overwritten if it exists
+     * @throws IOException           if the file cannot be written
+     * @throws IllegalStateException if the lexical elements were
+     *                               modified
+     */
+    public void write(Path path) throws IOException {
+        assertOpen();
+        lexicalElements.write(path);
+    }
+
+    /**
+     * <p>Apply a text edit to the source and update the lexical
+     * elements.</p>
+     *
+     * <p>Only the part of the source that is affected by the edit is
+     * analyzed again, see {@link
+     * javax0.javalex.lex.TokenStore#edit(int, int, CharSequence)}. The
+     * offset is a character position in the source as it was before the
+     * edit. The lexical elements must not have been modified before,
+     * because the positions refer to the source text and not to the
+     * modified elements.</p>
+     *
+     * @param offset        the position of the edit in the source
+     * @param removedLength the number of characters removed
+     * @param inserted      the text inserted at the offset
+     * @throws IllegalStateException if the lexical elements were
+     *                               modified before
+     */
+    public void edit(int offset, int removedLength, String inserted) {
+        assertOpen();
+        lexicalElements = lexicalElements.edit(offset, removedLength, inserted);
+        source = lexicalElements.source();
     }
 
     @Override
@@ -57,35 +205,24 @@ public class JavaLexed implements AutoCloseable {
      * the head of a try-with-resources block, perform the operations in
      * the try block and let the method {@code close()} be invoked
      * automatically.</p>
+     *
+     * <p>Closing also drops the reference to the lexical elements and
+     * to the original source, thus a file mapped by {@link #of(Path)}
+     * can be unmapped by the garbage collector.</p>
      */
     @Override
     public void close() {
         assertOpen();
         isOpen = false;
-        final var lines = new ArrayList<String>();
-        final var currentLine = new StringBuilder();
-        for (final var lex : lexicalElements) {
-            String lexeme;
-            if (lex.getType() == javax0.javalex.lex.LexicalElement.Type.CHARACTER || lex.getType() == javax0.javalex.lex.LexicalElement.Type.STRING) {
-                lexeme = lex.getOriginalLexeme();
-            } else {
-                lexeme = lex.getFullLexeme();
-            }
-            while (lexeme.contains("\n")) {
-                final var nlpos = lexeme.indexOf("\n");
-                final var start = lexeme.substring(0, nlpos);
-                currentLine.append(start);
-                lines.add(currentLine.toString());
-                currentLine.delete(0, currentLine.length());
-                lexeme = lexeme.substring(nlpos + 1);
-            }
-            currentLine.append(lexeme);
+        final var sb = new StringBuilder();
+        for (int i = 0; i < lexicalElements.size(); i++) {
+            lexicalElements.appendSource(i, sb);
         }
-        if (currentLine.length() > 0) {
-            lines.add(currentLine.toString());
+        if (sb.length() > 0 && sb.charAt(sb.length() - 1) == '\n') {
+            sb.setLength(sb.length() - 1);
         }
-        source.delete(0, source.length());
-        source.append(String.join("\n", lines));
+        source = sb.toString();
+        lexicalElements = null;
     }
 
     private void assertStartEndOrder(int start, int end) {
@@ -197,6 +334,90 @@ public class JavaLexed implements AutoCloseable {
         return lexicalElements.get(i);
     }
 
+    /**
+     * Get the type of the i-th element from the list of the lexical
+     * elements. This method does not need to create the lexical element
+     * object, thus matchers that check only the type should use it
+     * instead of {@link #get(int)}.
+     *
+     * @param i the index of the element
+     * @return the type of the element or {@link LexicalElement.Type#INVALID}
+     * in case the index is out of range
+     */
+    public LexicalElement.Type getType(int i) {
+        assertOpen();
+        if (i < 0 || i >= lexicalElements.size()) {
+            return LexicalElement.Type.INVALID;
+        }
+        return lexicalElements.getType(i);
+    }
+
+    /**
+     * Get the lexeme of the i-th element from the list of the lexical
+     * elements. This method does not need to create the lexical element
+     * object for identifiers and symbols.
+     *
+     * @param i the index of the element
+     * @return the lexeme of the element or {@code null} in case the
+     * index is out of range
+     */
+    public String getLexeme(int i) {
+        assertOpen();
+        if (i < 0 || i >= lexicalElements.size()) {
+            return null;
+        }
+        return lexicalElements.getLexeme(i);
+    }
+
+    /**
+     * Get the symbol table ID of the i-th element from the list of the
+     * lexical elements. Identifiers and symbols of this object have the
+     * same ID if and only if they have the same lexeme, see {@link
+     * javax0.javalex.lex.SymbolTable}. The IDs of different objects
+     * cannot be compared, except the IDs of the keywords.
+     *
+     * @param i the index of the element
+     * @return the ID of the element or {@link
+     * javax0.javalex.lex.SymbolTable#NO_ID} in case the element is not
+     * an identifier or symbol, or the index is out of range
+     */
+    public int getId(int i) {
+        assertOpen();
+        if (i < 0 || i >= lexicalElements.size()) {
+            return javax0.javalex.lex.SymbolTable.NO_ID;
+        }
+        return lexicalElements.getId(i);
+    }
+
+    /**
+     * Get the symbol table that assigns the IDs returned by {@link
+     * #getId(int)}.
+     *
+     * @return the symbol table of the lexical elements
+     */
+    public javax0.javalex.lex.SymbolTable symbols() {
+        assertOpen();
+        return lexicalElements.symbols();
+    }
+
+    /**
+     * Get the keyword code of the i-th element from the list of the
+     * lexical elements without creating the element object, see {@link
+     * javax0.javalex.lex.Keyword}.
+     *
+     * @param i the index of the element
+     * @return the code of the keyword or {@link
+     * javax0.javalex.lex.Keyword#NO_KEYWORD} in case the element is not
+     * a keyword, or the index is out of range
+     */
+    public int getKeyword(int i) {
+        assertOpen();
+        if (i < 0 || i >= lexicalElements.size()) {
+            return javax0.javalex.lex.Keyword.NO_KEYWORD;
+        }
+        return lexicalElements.getKeyword(i);
+    }
+
     /**
      * Remove the i-th element from the list of the lexical elements and
      * return the removed object.
@@ -223,7 +444,7 @@ public class JavaLexed implements AutoCloseable {
         assertStartEndOrder(start, end);
         assertOpen();
         if (end > start) {
-            lexicalElements.subList(start, end).clear();
+            lexicalElements.removeRange(start, end);
         }
     }
 
@@ -391,13 +612,9 @@ public class JavaLexed implements AutoCloseable {
      * @return {@code this}
      */
     public JavaLexed fromIndex(int i) {
-        javax0.javalex.lex.Lexer lexer = new javax0.javalex.lex.Lexer();
-        if ((sensitivity & javax0.javalex.matchers.Lexpression.SPACE_SENSITIVE) > 0) {
-            lexer.spaceSensitive();
-        }
-        if ((sensitivity & javax0.javalex.matchers.Lexpression.COMMENT_SENSITIVE) > 0) {
-            lexer.commentSensitive();
-        }
+        final var lexer = javax0.javalex.lex.Lexer.shared(
+                (sensitivity & javax0.javalex.matchers.Lexpression.SPACE_SENSITIVE) > 0,
+                (sensitivity & javax0.javalex.matchers.Lexpression.COMMENT_SENSITIVE) > 0);
         expression = new javax0.javalex.matchers.Lexpression(this, lexer);
         switch (action) {
             case MATCH:
@@ -1,6 +1,7 @@
 package javax0.javalex;
 
 import javax0.javalex.lex.Lexer;
+import javax0.javalex.lex.SymbolTable;
 
 import java.util.function.BiPredicate;
 
@@ -23,6 +24,10 @@ import java.util.function.BiPredicate;
  * and/or difference is only in content of comments, or comments are
  * missing or new comments are added, and/or numbers are expressed
  * differently, but they still have the same value.</p>
+ *
+ * <p>The two sources are analyzed with the same symbol table, thus the
+ * identifiers and symbols are compared by their IDs and not by their
+ * lexemes.</p>
  */
 public class JavaSourceDiff implements BiPredicate<String, String> {
     private boolean checkComments = false;
@@ -53,19 +58,23 @@ public class JavaSourceDiff implements BiPredicate<String, String> {
     @Override
     public boolean test(String strings1, String strings2) {
         if (strings1.equals(strings2)) return false;
-        final Lexer lexer;
-        if (checkComments) {
-            lexer = new Lexer().commentSensitive();
-        } else {
-            lexer = new Lexer();
-        }
-        LexicalElement[] elements1 = lexer.apply(strings1);
-        LexicalElement[] elements2 = lexer.apply(strings2);
-        if (elements1.length != elements2.length) {
+        final var lexer = Lexer.shared(false, checkComments);
+        final var symbols = new SymbolTable();
+        final var elements1 = lexer.tokenize(strings1, symbols);
+        final var elements2 = lexer.tokenize(strings2, symbols);
+        if (elements1.size() != elements2.size()) {
             return true;
         }
-        for (int i = 0; i < elements1.length; i++) {
-            if (!elements1[i].equals(elements2[i])) {
+        for (int i = 0; i < elements1.size(); i++) {
+            if (elements1.getType(i) != elements2.getType(i)) {
+                return true;
+            }
+            final int id = elements1.getId(i);
+            if (id != SymbolTable.NO_ID) {
+                if (id != elements2.getId(i)) {
+                    return true;
+                }
+            } else if (!elements1.get(i).equals(elements2.get(i))) {
                 return true;
             }
         }
@@ -0,0 +1,177 @@
+package javax0.javalex;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>Lex many Java source files concurrently.</p>
+ *
+ * <p>The files are read and lexed by the tasks of an executor service,
+ * each file by a separate task using {@link JavaLexed#of(Path)}. The
+ * tasks are submitted in the order of the size of the files, the
+ * largest file first, so that a large file does not start late and
+ * keeps a single thread busy when all the other files are finished.</p>
+ *
+ * <p>The results are returned in the order the files are finished.
+ * A file that cannot be read or analyzed does not stop the processing
+ * of the other files, the error is returned in the result of the
+ * file.</p>
+ *
+ * <p>The executor can be any executor service, for example a pool of
+ * platform threads or an executor starting a virtual thread for each
+ * task on Java versions that support them.</p>
+ */
+public class LexingService implements AutoCloseable {
+    private final ExecutorService executor;
+    private final boolean ownExecutor;
+
+    /**
+     * <p>The result of the lexical analysis of one file.</p>
+     *
+     * <p>When the analysis was successful then {@code javaLexed} holds
+     * the lexed file and {@code error} is {@code null}. Otherwise,
+     * {@code javaLexed} is {@code null} and {@code error} is the
+     * exception that stopped the reading or the analysis of the
+     * file.</p>
+     *
+     * <p>A file of at least {@link
+     * javax0.javalex.lex.MappedSource#MIN_MAPPED_SIZE} bytes stays
+     * mapped into the memory until {@code javaLexed} is closed and
+     * garbage collected, and it must not be modified or truncated
+     * meanwhile, see {@link JavaLexed#of(Path)}. The smaller files are
+     * read into the heap.</p>
+     */
+    public static class Result {
+        public final Path path;
+        public final JavaLexed javaLexed;
+        public final Throwable error;
+
+        public Result(Path path, JavaLexed javaLexed, Throwable error) {
+            this.path = path;
+            this.javaLexed = javaLexed;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Create a service that runs the tasks on a fixed thread pool that
+     * has as many threads as many processors the JVM can use. The pool
+     * is shut down when the service is closed.
+     */
+    public LexingService() {
+        this(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()), true);
+    }
+
+    /**
+     * Create a service that runs the tasks using the given executor.
+     * The executor is not shut down when the service is closed.
+     *
+     * @param executor the executor to run the tasks
+     */
+    public LexingService(ExecutorService executor) {
+        this(executor, false);
+    }
+
+    private LexingService(ExecutorService executor, boolean ownExecutor) {
+        this.executor = executor;
+        this.ownExecutor = ownExecutor;
+    }
+
+    /**
+     * <p>Lex the files.</p>
+     *
+     * <p>All the tasks are submitted before the method returns. The
+     * returned stream returns the results in the order the tasks finish,
+     * waiting for the next task to finish if needed. The stream has
+     * exactly one result for each path.</p>
+     *
+     * @param paths the Java source files
+     * @return the stream of the results
+     */
+    public Stream<Result> lexAll(Collection<Path> paths) {
+        final var completion = new ExecutorCompletionService<Result>(executor);
+        final var ordered = new ArrayList<SizedPath>(paths.size());
+        for (final var path : paths) {
+            ordered.add(new SizedPath(path));
+        }
+        ordered.sort(Comparator.comparingLong((SizedPath p) -> p.size).reversed());
+        for (final var sized : ordered) {
+            completion.submit(() -> lex(sized.path));
+        }
+        final var results = new Iterator<Result>() {
+            private int remaining = ordered.size();
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            @Override
+            public Result next() {
+                if (remaining == 0) {
+                    throw new NoSuchElementException("All the results were already returned.");
+                }
+                try {
+                    final var result = completion.take().get();
+                    remaining--;
+                    return result;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the lexical analysis.", e);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("The lexical analysis task failed.", e.getCause());
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliterator(results, ordered.size(), Spliterator.NONNULL), false);
+    }
+
+    private static Result lex(Path path) {
+        try {
+            return new Result(path, JavaLexed.of(path), null);
+        } catch (Exception e) {
+            return new Result(path, null, e);
+        }
+    }
+
+    private static class SizedPath {
+        private final Path path;
+        private final long size;
+
+        private SizedPath(Path path) {
+            this.path = path;
+            long size;
+            try {
+                size = Files.size(path);
+            } catch (IOException e) {
+                // the error is reported when the file is read
+                size = 0;
+            }
+            this.size = size;
+        }
+    }
+
+    /**
+     * Shut down the executor if it was created by the service.
+     */
+    @Override
+    public void close() {
+        if (ownExecutor) {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package javax0.javalex;
+
+import javax0.javalex.matchers.Lexpression;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * <p>A reactive processor that finds the matches of a lexical
+ * expression in a stream of lexical elements and publishes the matched
+ * elements.</p>
+ *
+ * <p>The processor keeps at most {@code windowSize} elements. When the
+ * window is full, the expression is searched in the elements of the
+ * window the same way as {@link JavaLexed#find(BiFunction)} does. A
+ * match that ends before the end of the window is published and the
+ * elements up to the end of the match are dropped. If there is no
+ * match, the first half of the window is dropped. Therefore, a match
+ * is found reliably if it is not longer than half of the window, and
+ * no match is longer than the window.</p>
+ *
+ * <p>The processor requests elements from the upstream only when the
+ * downstream subscriber has demand and there is no unpublished match,
+ * and never more than what fits into the window. That way the memory
+ * use is bounded by the window size even if the downstream is slower
+ * than the lexer.</p>
+ *
+ * <p>The processor accepts only one subscriber.</p>
+ */
+public class LexpressionProcessor implements Flow.Processor<LexicalElement, List<LexicalElement>> {
+    private final BiFunction<JavaLexed, Lexpression, LexMatcher> expression;
+    private final int sensitivity;
+    private final int windowSize;
+
+    private final ConcurrentLinkedQueue<LexicalElement> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile Flow.Subscription upstream;
+    private volatile Flow.Subscriber<? super List<LexicalElement>> downstream;
+    private volatile boolean upstreamDone = false;
+    private volatile Throwable error = null;
+    private volatile boolean cancelled = false;
+
+    // the fields below are used only in drain()
+    private final List<LexicalElement> window = new ArrayList<>();
+    /**
+     * The same elements as {@code window}, the expression is searched
+     * in this object. It is kept in sync with the window, so that it
+     * is not built again for every search.
+     */
+    private final JavaLexed lexed = new JavaLexed("");
+    private final ArrayDeque<List<LexicalElement>> matches = new ArrayDeque<>();
+    private long outstanding = 0;
+    private boolean terminated = false;
+
+    /**
+     * @param expression  the expression to find, the same as the
+     *                    argument of {@link JavaLexed#find(BiFunction)}
+     * @param sensitivity the sensitivity of the matching, see {@link
+     *                    JavaLexed#sensitivity(int)}
+     * @param windowSize  the maximum number of elements kept
+     */
+    public LexpressionProcessor(BiFunction<JavaLexed, Lexpression, LexMatcher> expression, int sensitivity, int windowSize) {
+        if (windowSize < 2) {
+            throw new IllegalArgumentException("The window size must be at least 2, it was " + windowSize);
+        }
+        this.expression = expression;
+        this.sensitivity = sensitivity;
+        this.windowSize = windowSize;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super List<LexicalElement>> subscriber) {
+        final var subscription = new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    error = new IllegalArgumentException("The number of requested matches must be positive, it was " + n);
+                    cancelUpstream();
+                } else {
+                    demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+                }
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+                cancelUpstream();
+            }
+        };
+        synchronized (this) {
+            if (downstream != null) {
+                subscriber.onSubscribe(subscription);
+                subscriber.onError(new IllegalStateException("The processor accepts only one subscriber."));
+                return;
+            }
+            downstream = subscriber;
+        }
+        subscriber.onSubscribe(subscription);
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (upstream != null) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        drain();
+    }
+
+    @Override
+    public void onNext(LexicalElement item) {
+        incoming.add(item);
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        error = throwable;
+        upstreamDone = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        drain();
+    }
+
+    private void cancelUpstream() {
+        final var subscription = upstream;
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    /**
+     * Process the arrived elements, publish the matches and request
+     * more elements. The calls from different threads and the
+     * recursive calls are serialized, only one thread runs the loop at
+     * a time.
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            final var subscriber = downstream;
+            if (terminated || subscriber == null) {
+                continue;
+            }
+            if (cancelled) {
+                terminated = true;
+                drop(window.size());
+                matches.clear();
+                continue;
+            }
+            if (error != null) {
+                terminated = true;
+                subscriber.onError(error);
+                continue;
+            }
+            LexicalElement element;
+            while ((element = incoming.poll()) != null) {
+                lexed.add(window.size(), element);
+                window.add(element);
+                outstanding--;
+            }
+            while (window.size() >= windowSize) {
+                search(false);
+            }
+            final boolean completed = upstreamDone && incoming.isEmpty();
+            if (completed) {
+                while (!window.isEmpty()) {
+                    search(true);
+                }
+            }
+            while (demand.get() > 0 && !matches.isEmpty() && !cancelled) {
+                demand.decrementAndGet();
+                subscriber.onNext(matches.poll());
+            }
+            if (completed && matches.isEmpty()) {
+                terminated = true;
+                subscriber.onComplete();
+                continue;
+            }
+            final var subscription = upstream;
+            if (subscription != null && !upstreamDone && matches.isEmpty() && demand.get() > 0 && outstanding <= 0) {
+                outstanding = windowSize - window.size();
+                subscription.request(outstanding);
+            }
+        } while (wip.decrementAndGet() != 0);
+    }
+
+    /**
+     * Search the expression in the window, store the match if there is
+     * one and drop the elements that do not need to be searched again.
+     *
+     * @param last {@code true} if no more elements will arrive
+     */
+    private void search(boolean last) {
+        final var result = lexed.find(expression).sensitivity(sensitivity).fromStart().result();
+        if (!result.matches) {
+            drop(last ? window.size() : Math.max(1, window.size() / 2));
+        } else if (result.end < window.size() || last || result.start == 0) {
+            if (result.end > result.start) {
+                matches.add(new ArrayList<>(window.subList(result.start, result.end)));
+            }
+            drop(Math.max(result.end, result.start + 1));
+        } else {
+            // the match reaches the end of the window, it may be longer when more elements arrive
+            drop(result.start);
+        }
+    }
+
+    private void drop(int n) {
+        window.subList(0, n).clear();
+        lexed.removeRange(0, n);
+    }
+}
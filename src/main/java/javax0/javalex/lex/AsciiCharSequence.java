@@ -0,0 +1,92 @@
+package javax0.javalex.lex;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A {@link CharSequence} view of a byte buffer that contains only ASCII characters. Every byte is one character, thus
+ * the characters can be read directly from the buffer, for example from a memory mapped file, without decoding and
+ * copying the content to the heap.
+ */
+class AsciiCharSequence implements CharSequence {
+    private final ByteBuffer buffer;
+    private final int offset;
+    private final int length;
+
+    /**
+     * @param buffer the buffer from its position to its limit
+     */
+    AsciiCharSequence(ByteBuffer buffer) {
+        this(buffer, buffer.position(), buffer.remaining());
+    }
+
+    private AsciiCharSequence(ByteBuffer buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * @return {@code true} if the characters are outside the Java heap
+     */
+    boolean isDirect() {
+        return buffer.isDirect();
+    }
+
+    /**
+     * Check that the buffer between its position and limit contains only ASCII characters. The bytes are checked
+     * eight at a time.
+     *
+     * @param buffer the buffer to check, its position is not changed
+     * @return {@code true} if all the bytes are ASCII
+     */
+    static boolean isAscii(ByteBuffer buffer) {
+        int i = buffer.position();
+        final int limit = buffer.limit();
+        for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+            if ((buffer.getLong(i) & 0x8080808080808080L) != 0) {
+                return false;
+            }
+        }
+        for (; i < limit; i++) {
+            if (buffer.get(i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + " is out of range, length is " + length);
+        }
+        return (char) buffer.get(offset + index);
+    }
+
+    /**
+     * @return the characters as a new {@code String}, which is not a view of the buffer
+     */
+    @Override
+    public String subSequence(int start, int end) {
+        if (start < 0 || start > end || end > length) {
+            throw new IndexOutOfBoundsException("Invalid range " + start + ".." + end + ", length is " + length);
+        }
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + offset + start, end - start, StandardCharsets.ISO_8859_1);
+        }
+        final var bytes = new byte[end - start];
+        buffer.duplicate().position(offset + start).get(bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length);
+    }
+}
@@ -0,0 +1,48 @@
+package javax0.javalex.lex;
+
+/**
+ * A {@link CharSequence} view of the start of a {@code char} array. The array is not copied, thus the content of the
+ * sequence changes when the array is modified.
+ */
+class CharArraySequence implements CharSequence {
+    private final char[] chars;
+    private final int length;
+
+    /**
+     * @param chars  the array holding the characters
+     * @param length the number of characters at the start of the array that belong to the sequence
+     */
+    CharArraySequence(char[] chars, int length) {
+        this.chars = chars;
+        this.length = length;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + " is out of range, length is " + length);
+        }
+        return chars[index];
+    }
+
+    /**
+     * @return the characters as a new {@code String}, which is not a view of the array
+     */
+    @Override
+    public String subSequence(int start, int end) {
+        if (start < 0 || start > end || end > length) {
+            throw new IndexOutOfBoundsException("Invalid range " + start + ".." + end + ", length is " + length);
+        }
+        return new String(chars, start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+}
@@ -0,0 +1,132 @@
+package javax0.javalex.lex;
+
+import java.nio.CharBuffer;
+import java.util.function.Consumer;
+
+/**
+ * A lexer that is fed with the source chunk by chunk and passes the lexical elements to a consumer as soon as they are
+ * recognized.
+ * <p>
+ * The chunks can have any size, they may end in the middle of a lexical element. The characters that were not
+ * consumed yet are kept in a buffer. When an element reaches the end of the available characters (see {@link
+ * WindowInput}), the element is not passed to the consumer, because it may be different when more characters arrive.
+ * For example {@code >>} at the end of a chunk may be the start of {@code >>>=}, and an unterminated comment or string
+ * may be terminated in the next chunk. The analysis of the element is repeated when more characters are fed.
+ * <p>
+ * To keep the time of the analysis linear to the size of the source even for elements that span many chunks, like a
+ * long comment, an element that could not be finished is analyzed again only after the number of the buffered
+ * characters has doubled, or when {@link #end()} is called.
+ * <p>
+ * The lexer is not thread safe. The consumer is called from the thread calling {@link #feed(CharBuffer)} or {@link
+ * #end()}.
+ */
+public class ChunkedLexer {
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    private final Lexer lexer;
+    private final Consumer<? super LexicalElement> consumer;
+    private char[] buffer = new char[INITIAL_BUFFER_SIZE];
+    private int start = 0;
+    private int end = 0;
+    /**
+     * The number of the buffered characters needed to try the analysis again.
+     */
+    private int required = 0;
+    private boolean ended = false;
+
+    /**
+     * @param lexer    the lexer defining the lex eaters and the ignored elements
+     * @param consumer the consumer of the elements that are not ignored by the lexer
+     */
+    ChunkedLexer(Lexer lexer, Consumer<? super LexicalElement> consumer) {
+        this.lexer = lexer;
+        this.consumer = consumer;
+    }
+
+    /**
+     * Feed the next chunk of the source. The remaining characters of the buffer are consumed, and the elements that
+     * can be recognized are passed to the consumer.
+     *
+     * @param chunk the next characters of the source
+     * @throws IllegalStateException if {@link #end()} was already called
+     */
+    public void feed(CharBuffer chunk) {
+        assertNotEnded();
+        append(chunk);
+        if (end - start >= required) {
+            analyze(false);
+        }
+    }
+
+    /**
+     * Signal the end of the source. The remaining elements are passed to the consumer.
+     *
+     * @throws IllegalStateException if {@link #end()} was already called
+     * @throws RuntimeException      the same exception as {@link Lexer#apply(String)} if the source cannot be
+     *                               analyzed, for example a comment is not terminated
+     */
+    public void end() {
+        assertNotEnded();
+        ended = true;
+        analyze(true);
+    }
+
+    private void assertNotEnded() {
+        if (ended) {
+            throw new IllegalStateException("The end of the source was already signalled.");
+        }
+    }
+
+    /**
+     * Copy the chunk after the buffered characters, moving them to the start of the buffer and growing the buffer
+     * when there is no room.
+     */
+    private void append(CharBuffer chunk) {
+        final int n = chunk.remaining();
+        if (end + n > buffer.length) {
+            final int pending = end - start;
+            if (pending + n > buffer.length) {
+                final var grown = new char[Math.max(pending + n, 2 * buffer.length)];
+                System.arraycopy(buffer, start, grown, 0, pending);
+                buffer = grown;
+            } else {
+                System.arraycopy(buffer, start, buffer, 0, pending);
+            }
+            start = 0;
+            end = pending;
+        }
+        chunk.get(buffer, end, n);
+        end += n;
+    }
+
+    /**
+     * Recognize the elements in the buffered characters.
+     *
+     * @param eof {@code true} if no more characters will be fed
+     */
+    private void analyze(boolean eof) {
+        final var window = new CharArraySequence(buffer, end);
+        while (start < end) {
+            final var in = new WindowInput(window, start, end);
+            final LexicalElement element;
+            try {
+                element = lexer.eatSignificant(in);
+            } catch (RuntimeException e) {
+                if (eof || !in.reachedEnd()) {
+                    throw e;
+                }
+                required = 2 * (end - start);
+                return;
+            }
+            if (!eof && in.reachedEnd()) {
+                required = 2 * (end - start);
+                return;
+            }
+            start = in.position();
+            if (element != null) {
+                consumer.accept(element);
+            }
+        }
+        required = 0;
+    }
+}
@@ -0,0 +1,155 @@
+package javax0.javalex.lex;
+
+import java.util.Arrays;
+
+/**
+ * The table of the Java keywords and contextual keywords.
+ * <p>
+ * Every keyword has a code, which is also its ID in every {@link SymbolTable}: the tables reserve the first IDs for
+ * the keywords, in the order of their codes. Thus an identifier is a keyword if its ID is less than {@link #COUNT},
+ * and the ID of the identifier is the code of the keyword. Keywords can be compared with a single {@code int}
+ * comparison of the IDs, even if the IDs come from different tables.
+ * <p>
+ * The code of a keyword can be found without creating a string, using a perfect hash of the characters. The hash
+ * function is a multiplicative hash of the characters with a seed that is selected when the class is loaded, so that no
+ * two keywords get the same slot of the table. Looking up a character sequence that is not a keyword needs at most
+ * one comparison with a keyword.
+ * <p>
+ * The contextual keywords, like {@code var}, {@code record} or {@code yield}, are also in the table, because they are
+ * matched the same way. They can also be used as identifiers in the source code, see {@link #isContextual(int)}.
+ * {@code non-sealed} is not in the table, because it is not a single lexical element.
+ */
+public class Keyword {
+    /**
+     * The code of the character sequences that are not keywords.
+     */
+    public static final int NO_KEYWORD = -1;
+
+    private static final String[] NAMES = {
+        "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const", "continue",
+        "default", "do", "double", "else", "enum", "extends", "final", "finally", "float", "for", "goto", "if",
+        "implements", "import", "instanceof", "int", "interface", "long", "native", "new", "package", "private",
+        "protected", "public", "return", "short", "static", "strictfp", "super", "switch", "synchronized", "this",
+        "throw", "throws", "transient", "try", "void", "volatile", "while", "_",
+        // contextual keywords
+        "exports", "module", "open", "opens", "permits", "provides", "record", "requires", "sealed", "to",
+        "transitive", "uses", "var", "when", "with", "yield",
+    };
+    private static final int FIRST_CONTEXTUAL = Arrays.asList(NAMES).indexOf("exports");
+
+    /**
+     * The number of the keywords, the codes are from zero to {@code COUNT - 1}.
+     */
+    public static final int COUNT = NAMES.length;
+
+    private static final int TABLE_BITS = 9;
+    private static final int MAX_LENGTH;
+    private static final int SEED;
+    /**
+     * The code of the keyword hashed to the slot, or {@link #NO_KEYWORD} if no keyword is hashed to the slot.
+     */
+    private static final byte[] TABLE = new byte[1 << TABLE_BITS];
+
+    static {
+        int maxLength = 0;
+        for (final var name : NAMES) {
+            maxLength = Math.max(maxLength, name.length());
+        }
+        MAX_LENGTH = maxLength;
+        int seed = 0;
+        while (!fill(seed)) {
+            seed++;
+        }
+        SEED = seed;
+    }
+
+    private Keyword() {
+    }
+
+    /**
+     * Try to fill the table with the given seed.
+     *
+     * @return {@code true} if no two keywords got the same slot
+     */
+    private static boolean fill(int seed) {
+        Arrays.fill(TABLE, (byte) NO_KEYWORD);
+        for (int code = 0; code < NAMES.length; code++) {
+            final int slot = slot(seed, NAMES[code], 0, NAMES[code].length());
+            if (TABLE[slot] != NO_KEYWORD) {
+                return false;
+            }
+            TABLE[slot] = (byte) code;
+        }
+        return true;
+    }
+
+    private static int slot(int seed, CharSequence in, int start, int end) {
+        int h = seed;
+        for (int i = start; i < end; i++) {
+            h = (h ^ in.charAt(i)) * 0x01000193;
+        }
+        return (h ^ (h >>> 16)) & ((1 << TABLE_BITS) - 1);
+    }
+
+    /**
+     * Get the code of the keyword that is between {@code start} (inclusive) and {@code end} (exclusive) in the input.
+     *
+     * @param in    the characters
+     * @param start the start of the possible keyword
+     * @param end   the end of the possible keyword
+     * @return the code of the keyword, or {@link #NO_KEYWORD} if the characters are not a keyword
+     */
+    public static int code(CharSequence in, int start, int end) {
+        final int length = end - start;
+        if (length < 1 || length > MAX_LENGTH) {
+            return NO_KEYWORD;
+        }
+        final int code = TABLE[slot(SEED, in, start, end)];
+        if (code == NO_KEYWORD) {
+            return NO_KEYWORD;
+        }
+        final var name = NAMES[code];
+        if (name.length() != length) {
+            return NO_KEYWORD;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != in.charAt(start + i)) {
+                return NO_KEYWORD;
+            }
+        }
+        return code;
+    }
+
+    /**
+     * @param name a possible keyword
+     * @return the code of the keyword, or {@link #NO_KEYWORD} if the string is not a keyword
+     */
+    public static int code(String name) {
+        return code(name, 0, name.length());
+    }
+
+    /**
+     * @param id an ID from a {@link SymbolTable}, or {@link SymbolTable#NO_ID}
+     * @return the code of the keyword if the ID belongs to a keyword, otherwise {@link #NO_KEYWORD}
+     */
+    public static int of(int id) {
+        return id >= 0 && id < COUNT ? id : NO_KEYWORD;
+    }
+
+    /**
+     * @param code the code of a keyword
+     * @return the keyword
+     */
+    public static String name(int code) {
+        return NAMES[code];
+    }
+
+    /**
+     * @param code the code of a keyword
+     * @return {@code true} if the keyword is a contextual keyword, which is a keyword only in some positions and can
+     * be an identifier elsewhere
+     */
+    public static boolean isContextual(int code) {
+        return code >= FIRST_CONTEXTUAL;
+    }
+}
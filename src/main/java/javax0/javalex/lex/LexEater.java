@@ -6,13 +6,62 @@ import javax0.javalex.lex.eaters.SpaceLiteral;
 import java.util.function.Function;
 
 /**
- * A lex eater recognizes when the string in the input {@code StringBuilder} starts with the lexical element that the specific lex eater is responsible for, and it removes the lexical element from the start of the input.
+ * A lex eater recognizes when the not yet consumed part of the {@link LexInput} starts with the lexical element that the specific lex eater is responsible for, and it consumes the lexical element advancing the position of the input.
  * It also returns a new lexical element object that was created from the string of the lexical element.
  * <p>
- * If the lex eater could not find any lexical element to remove from the input then it returns {@code null}.
+ * If the lex eater could not find any lexical element at the start of the input then it returns {@code null} and it does not change the position of the input.
  * <p>
- * Some lex eaters, namely the {@link CommentLiteral} and {@link SpaceLiteral} return a special instance, {@code LexicalElement.IGNORED}, which is not stored in the list of lexical elements.
+ * Some lex eaters, namely the {@link CommentLiteral} and {@link SpaceLiteral} return elements that are not stored in the list of lexical elements unless the lexer is space or comment sensitive.
  * That way, a later analysis is independent of the comments and spaces.
  */
-public interface LexEater extends Function<StringBuilder, LexicalElement> {
+public interface LexEater extends Function<LexInput, LexicalElement> {
+
+    /**
+     * Declare the characters a lexical element recognized by this lex eater can start with.
+     * <p>
+     * The {@link Lexer} calls this method for each ASCII character when it is created and builds a dispatch table
+     * from the result. When the next character of the input is ASCII, the lexer invokes only those lex eaters that
+     * may start with the character, in the order they were given to the lexer. For non-ASCII characters every lex
+     * eater is invoked.
+     * <p>
+     * The implementation may return {@code true} for a character even if the lex eater does not recognize anything
+     * starting with it, but it must not return {@code false} for a character that may start an element. The default
+     * implementation returns {@code true} for every character.
+     *
+     * @param ch the first character of the not yet consumed input
+     * @return {@code true} if the lex eater may recognize a lexical element starting with the character
+     */
+    default boolean mayStartWith(char ch) {
+        return true;
+    }
+
+    /**
+     * Declare the type of the lexical elements this lex eater recognizes.
+     * <p>
+     * When the lexer ignores the elements of the declared type, it uses {@link #scan(LexInput)} to skip them without
+     * creating the element objects. The default implementation returns {@code null}, meaning that the type is not
+     * known in advance, or the lex eater recognizes elements of different types.
+     *
+     * @return the type of all the elements recognized by this lex eater or {@code null}
+     */
+    default javax0.javalex.LexicalElement.Type type() {
+        return null;
+    }
+
+    /**
+     * Consume the lexical element at the start of the input the same way as {@link #apply(Object)} does, but return
+     * only the type of the element instead of the element object.
+     * <p>
+     * This method is used by {@link Lexer#scan(CharSequence, TokenSink)}, which does not need the element objects. The
+     * default implementation creates the element and returns its type. The lex eaters of the library override it to
+     * consume the element without creating any object.
+     *
+     * @param in the input
+     * @return the type of the consumed element or {@code null} if the lex eater did not recognize any element at the
+     * start of the input, in which case the position of the input is not changed
+     */
+    default javax0.javalex.LexicalElement.Type scan(LexInput in) {
+        final var element = apply(in);
+        return element == null ? null : element.getType();
+    }
 }
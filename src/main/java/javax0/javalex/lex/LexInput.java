@@ -0,0 +1,185 @@
+package javax0.javalex.lex;
+
+/**
+ * The input of the lexical analysis as the lex eaters see it.
+ * <p>
+ * A lex input is a cursor over an immutable {@link CharSequence}. The lex eaters do not delete the characters they
+ * consume, they only advance the position of the cursor. The {@link CharSequence} methods of this class work relative
+ * to the current position, thus {@code charAt(0)} is the next character to be consumed and {@code length()} is the
+ * number of characters that were not consumed yet. That way a lex eater can check the start of the input the same way
+ * as it could check the start of a {@code StringBuilder}, but consuming a character costs nothing.
+ */
+public class LexInput implements CharSequence {
+    private final CharSequence source;
+    private final int end;
+    private int position;
+
+    /**
+     * Create a new input that starts at the start of the source and ends at the end of the source.
+     *
+     * @param source the source code to analyze
+     */
+    public LexInput(CharSequence source) {
+        this(source, 0, source.length());
+    }
+
+    /**
+     * Create a new input that covers only a part of the source.
+     *
+     * @param source the source code to analyze
+     * @param start  the position of the first character of the input in the source
+     * @param end    the position after the last character of the input in the source
+     */
+    public LexInput(CharSequence source, int start, int end) {
+        if (start < 0 || start > end || end > source.length()) {
+            throw new IndexOutOfBoundsException("Invalid input range " + start + ".." + end + " for a source of length " + source.length());
+        }
+        this.source = source;
+        this.position = start;
+        this.end = end;
+    }
+
+    /**
+     * @return the underlying source that the positions returned by {@link #position()} refer to.
+     */
+    public CharSequence source() {
+        return source;
+    }
+
+    /**
+     * @return the position of the next character to be consumed in the source
+     */
+    public int position() {
+        return position;
+    }
+
+    /**
+     * @return the position in the source after the last character of the input
+     */
+    public int end() {
+        return end;
+    }
+
+    /**
+     * Consume {@code n} characters from the start of the input.
+     *
+     * @param n the number of the characters to consume
+     */
+    public void skip(int n) {
+        if (n < 0 || n > end - position) {
+            throw new IndexOutOfBoundsException("Cannot skip " + n + " characters when only " + (end - position) + " are left");
+        }
+        position += n;
+    }
+
+    /**
+     * @param s the string to look for
+     * @return {@code true} if the not yet consumed part of the input starts with the string {@code s}
+     */
+    public boolean startsWith(String s) {
+        final int len = s.length();
+        if (len > end - position) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            if (source.charAt(position + i) != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find the first occurrence of the string in the not yet consumed part of the input.
+     * <p>
+     * When the source is a {@code String}, the search is performed by {@link String#indexOf(String, int)}, which the
+     * JVM implements with vector instructions. The lex eaters use this method to jump to the end of long elements, like
+     * the closing {@code *}{@code /} of a comment, instead of checking the characters one by one.
+     *
+     * @param s    the string to look for, not empty
+     * @param from the index relative to the current position where the search starts
+     * @return the index of the string relative to the current position, or -1 if the input does not contain it
+     */
+    public int indexOf(String s, int from) {
+        final int start = position + from;
+        final int last = end - s.length();
+        if (source instanceof String) {
+            final int i = ((String) source).indexOf(s, start);
+            return i < 0 || i > last ? -1 : i - position;
+        }
+        final char first = s.charAt(0);
+        for (int i = start; i <= last; i++) {
+            if (source.charAt(i) == first && regionMatches(i, s)) {
+                return i - position;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find the first occurrence of the character in a range of the not yet consumed part of the input.
+     *
+     * @param ch   the character to look for
+     * @param from the index relative to the current position where the search starts
+     * @param to   the index relative to the current position where the search ends, exclusive
+     * @return the index of the character relative to the current position, or -1 if the range does not contain it
+     */
+    public int indexOf(char ch, int from, int to) {
+        for (int i = position + from; i < position + to; i++) {
+            if (source.charAt(i) == ch) {
+                return i - position;
+            }
+        }
+        return -1;
+    }
+
+    private boolean regionMatches(int start, String s) {
+        for (int i = 1; i < s.length(); i++) {
+            if (source.charAt(start + i) != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the characters consumed since the position {@code start}. The typical use is that a lex eater saves the
+     * position before consuming a lexical element, and after the element was consumed it creates the lexeme from the
+     * characters between the saved and the current position.
+     *
+     * @param start the position in the source where the lexeme starts
+     * @return the characters from {@code start} to the current position
+     */
+    public String lexeme(int start) {
+        return source.subSequence(start, position).toString();
+    }
+
+    @Override
+    public int length() {
+        return end - position;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= end - position) {
+            throw new IndexOutOfBoundsException("index " + index + " is out of range, length is " + (end - position));
+        }
+        return source.charAt(position + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || start > end || end > this.end - position) {
+            throw new IndexOutOfBoundsException("Invalid range " + start + ".." + end + ", length is " + (this.end - position));
+        }
+        return source.subSequence(position + start, position + end);
+    }
+
+    /**
+     * @return the not yet consumed part of the input
+     */
+    @Override
+    public String toString() {
+        return source.subSequence(position, end).toString();
+    }
+}
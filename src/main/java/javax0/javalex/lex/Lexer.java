@@ -8,28 +8,128 @@ import javax0.javalex.lex.eaters.SpaceLiteral;
 import javax0.javalex.lex.eaters.StringLiteral;
 import javax0.javalex.lex.eaters.SymbolLiteral;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * The lexical analyzer.
+ * <p>
+ * A lexer created with a constructor can be configured calling {@link #spaceSensitive()}, {@link #commentSensitive()}
+ * and {@link #parallel()}. The lexers returned by {@link #shared(boolean, boolean)} are immutable, they can be used
+ * from several threads at the same time, and they are created only once. The lex eaters of the library are stateless,
+ * thus all the lexers created without specifying the lex eaters share the same lex eater instances.
+ */
 public class Lexer implements Function<String, javax0.javalex.LexicalElement[]> {
 
     private boolean spaceSensitive = false;
     private boolean commentSensitive = false;
+    private boolean parallel = false;
+    private final boolean shared;
+
+    /**
+     * The sources shorter than this are analyzed sequentially even if the lexer is {@link #parallel()}.
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 20;
+
+    private static final int ASCII = 128;
+
+    private static final LexEater[] DEFAULT_LEX_EATERS = {
+            new SpaceLiteral(),
+            new CharacterLiteral(),
+            new StringLiteral(),
+            new CommentLiteral(),
+            new IdentifierLiteral(),
+            new NumberLiteral(),
+            new SymbolLiteral(),
+    };
+    private static final LexEater[][] DEFAULT_DISPATCH = dispatchTable(DEFAULT_LEX_EATERS);
+
+    /**
+     * The shared lexers indexed by the sensitivity, bit 0 is space sensitivity and bit 1 is comment sensitivity.
+     */
+    private static final Lexer[] SHARED = new Lexer[4];
+
+    static {
+        for (int i = 0; i < SHARED.length; i++) {
+            final var lexer = new Lexer(DEFAULT_LEX_EATERS, DEFAULT_DISPATCH, true);
+            lexer.spaceSensitive = (i & 1) != 0;
+            lexer.commentSensitive = (i & 2) != 0;
+            SHARED[i] = lexer;
+        }
+    }
+
+    /**
+     * The list collecting the elements in {@link #lex(CharSequence)}, reused on each thread. A list that grew larger
+     * than {@link #MAX_SCRATCH_SIZE} is not kept, so that lexing a large file does not keep the memory.
+     */
+    private static final ThreadLocal<ArrayList<LexicalElement>> SCRATCH = new ThreadLocal<>();
+    private static final int MAX_SCRATCH_SIZE = 1 << 12;
 
     public Lexer() {
-        this(new LexEater[]{
-                new SpaceLiteral(),
-                new CharacterLiteral(),
-                new StringLiteral(),
-                new CommentLiteral(),
-                new IdentifierLiteral(),
-                new NumberLiteral(),
-                new SymbolLiteral(),
-        });
+        this(DEFAULT_LEX_EATERS, DEFAULT_DISPATCH, false);
     }
+
     public Lexer(final LexEater[] lexEaters) {
+        this(lexEaters, dispatchTable(lexEaters), false);
+    }
+
+    private Lexer(final LexEater[] lexEaters, final LexEater[][] dispatch, final boolean shared) {
         this.lexEaters = lexEaters;
+        this.dispatch = dispatch;
+        this.shared = shared;
+    }
+
+    /**
+     * Get the shared, immutable lexer with the given sensitivity. The lexer uses the lex eaters of the library and it
+     * is not parallel. The configuration methods of the returned lexer throw {@link UnsupportedOperationException}.
+     *
+     * @param spaceSensitive   {@code true} if the lexer has to be space sensitive, see {@link #spaceSensitive()}
+     * @param commentSensitive {@code true} if the lexer has to be comment sensitive, see {@link #commentSensitive()}
+     * @return the shared lexer
+     */
+    public static Lexer shared(boolean spaceSensitive, boolean commentSensitive) {
+        return SHARED[(spaceSensitive ? 1 : 0) | (commentSensitive ? 2 : 0)];
+    }
+
+    private void assertNotShared() {
+        if (shared) {
+            throw new UnsupportedOperationException("A shared lexer cannot be modified, create a new Lexer to have a different configuration.");
+        }
+    }
+
+    /**
+     * Create the table that assigns the lex eaters to the ASCII characters that may start their lexical elements.
+     *
+     * @param lexEaters the lex eaters in the order they are to be tried
+     * @return an array indexed by the ASCII character code, each element containing the lex eaters that may start
+     * with the character in the original order
+     */
+    private static LexEater[][] dispatchTable(final LexEater[] lexEaters) {
+        final var table = new LexEater[ASCII][];
+        final var candidates = new ArrayList<LexEater>();
+        for (char ch = 0; ch < ASCII; ch++) {
+            candidates.clear();
+            for (final var lexEater : lexEaters) {
+                if (lexEater.mayStartWith(ch)) {
+                    candidates.add(lexEater);
+                }
+            }
+            table[ch] = candidates.toArray(new LexEater[0]);
+        }
+        return table;
     }
 
     public boolean isSpaceSensitive() {
@@ -40,6 +140,24 @@ public class Lexer implements Function<String, javax0.javalex.LexicalElement[]>
         return commentSensitive;
     }
 
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * @return a string describing everything that affects the result of the analysis: the sensitivity and the classes
+     * of the lex eaters. Lexers with the same configuration create the same elements from the same source.
+     */
+    String configuration() {
+        final var sb = new StringBuilder()
+            .append(spaceSensitive ? "space sensitive" : "space insensitive").append(',')
+            .append(commentSensitive ? "comment sensitive" : "comment insensitive");
+        for (final var lexEater : lexEaters) {
+            sb.append(',').append(lexEater.getClass().getName());
+        }
+        return sb.toString();
+    }
+
     /**
      * Set the lexer to be space sensitive. In case the lexer is space
      * sensitive, then the returned array contains SPACING elements as
@@ -48,6 +166,7 @@ public class Lexer implements Function<String, javax0.javalex.LexicalElement[]>
      * @return {@code this}
      */
     public Lexer spaceSensitive() {
+        assertNotShared();
         spaceSensitive = true;
         return this;
     }
@@ -61,21 +180,256 @@ public class Lexer implements Function<String, javax0.javalex.LexicalElement[]>
      * @return {@code this}
      */
     public Lexer commentSensitive() {
+        assertNotShared();
         commentSensitive = true;
         return this;
     }
 
+    /**
+     * Set the lexer to analyze large sources on several threads. Sources
+     * that are at least {@link #PARALLEL_THRESHOLD} characters long are
+     * split into chunks, which are analyzed in parallel on the common
+     * fork join pool. The result is the same as the result of the
+     * sequential analysis. The sources are analyzed sequentially if the
+     * common pool has no parallelism. In this mode the lex eaters are
+     * used from several threads at the same time, thus they have to be
+     * thread safe.
+     *
+     * @return {@code this}
+     */
+    public Lexer parallel() {
+        assertNotShared();
+        parallel = true;
+        return this;
+    }
+
+    /**
+     * Perform the lexical analysis of the source.
+     * <p>
+     * The lex eaters read the source through a {@link LexInput} cursor, which is only advanced and never modified,
+     * thus the time of the analysis is linear to the size of the source.
+     *
+     * @param source the Java source code to analyze
+     * @return the array of the lexical elements
+     */
     @Override
     public LexicalElement[] apply(String source) {
-        final var code = new StringBuilder(String.join("\n", source));
-        final var lexicalElements = new ArrayList<LexicalElement>();
+        return lex(source);
+    }
+
+    /**
+     * Perform the lexical analysis of the source. See {@link #apply(String)}.
+     *
+     * @param source the Java source code to analyze
+     * @return the array of the lexical elements
+     */
+    public LexicalElement[] lex(CharSequence source) {
+        if (parallel && source.length() >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            return ParallelLexer.lex(this, source).toArray(new LexicalElement[0]);
+        }
+        final var code = new LexInput(source);
+        var lexicalElements = SCRATCH.get();
+        if (lexicalElements == null) {
+            lexicalElements = new ArrayList<>();
+        } else {
+            // a lex eater may lex another source on the same thread while the list is in use
+            SCRATCH.set(null);
+        }
+        try {
+            while (code.length() > 0) {
+                final var nextLex = next(code);
+                if (nextLex != null) {
+                    lexicalElements.add(nextLex);
+                }
+            }
+            return lexicalElements.toArray(new LexicalElement[0]);
+        } finally {
+            if (lexicalElements.size() <= MAX_SCRATCH_SIZE) {
+                lexicalElements.clear();
+                SCRATCH.set(lexicalElements);
+            }
+        }
+    }
+
+    /**
+     * Perform the lexical analysis of the source and store the result in a compact {@link TokenStore}.
+     * <p>
+     * The store keeps only the type and the position of the elements. The lexical element objects are created later
+     * when they are requested from the store. The identifiers and symbols get their ID from a new {@link SymbolTable}
+     * owned by the store.
+     *
+     * @param source the Java source code to analyze
+     * @return the store containing the lexical elements
+     */
+    public TokenStore tokenize(CharSequence source) {
+        return tokenize(source, new SymbolTable());
+    }
+
+    /**
+     * Perform the lexical analysis of the source and store the result in a compact {@link TokenStore}, see {@link
+     * #tokenize(CharSequence)}. The identifiers and symbols get their ID from the given table, thus the stores of a
+     * corpus analyzed with the same table can compare their IDs and share the lexeme strings.
+     *
+     * @param source  the Java source code to analyze
+     * @param symbols the table assigning the IDs of the identifiers and symbols
+     * @return the store containing the lexical elements
+     */
+    public TokenStore tokenize(CharSequence source, SymbolTable symbols) {
+        final var store = new TokenStore(source, this, symbols);
+        final var code = new LexInput(source);
         while (code.length() > 0) {
-            final var nextLex = next(code);
-            if (nextLex != null) {
-                lexicalElements.add(nextLex);
+            final int start = code.position();
+            final var element = eatSignificant(code);
+            if (element != null) {
+                store.append(element, start, code.position());
             }
         }
-        return lexicalElements.toArray(new LexicalElement[0]);
+        return store;
+    }
+
+    /**
+     * Perform the lexical analysis of a UTF-8 encoded source and store the result in a compact {@link TokenStore}.
+     * <p>
+     * The source is not converted to a {@code String}. If it is ASCII, then the store refers to the ranges of the
+     * buffer and the lexemes are created from the bytes only when the elements are requested, see {@link
+     * Utf8Source#of(ByteBuffer)}.
+     *
+     * @param source the UTF-8 encoded Java source code from the position to the limit of the buffer, which must not be
+     *               modified while the store is used
+     * @return the store containing the lexical elements
+     * @throws IllegalArgumentException if the source is not valid UTF-8
+     */
+    public TokenStore tokenize(ByteBuffer source) {
+        return tokenize(Utf8Source.of(source));
+    }
+
+    /**
+     * Load the elements and the source saved by {@link TokenStore#write(Path)}.
+     * <p>
+     * The source is not analyzed again, which is much faster than analyzing the source. A large file is memory mapped
+     * and it stays mapped as long as the returned store is reachable, see {@link MappedSource}.
+     * The returned store uses this lexer to create the lexical element objects when they are requested. The lexer has
+     * to be configured the same way as the one that created the saved store, and it has to have the same lex eaters.
+     * Only the sensitivity can be checked when the file is loaded.
+     *
+     * @param path the file written by {@link TokenStore#write(Path)}
+     * @return the loaded store
+     * @throws IOException if the file cannot be read, it is not a valid token file, or it was saved from the result of
+     *                     a lexer of different sensitivity
+     */
+    public TokenStore load(Path path) throws IOException {
+        return TokenFile.read(path, this);
+    }
+
+    /**
+     * Perform the lexical analysis of the source passing only the type and the range of each element to the sink.
+     * <p>
+     * No lexical element object is created and nothing is collected, thus the memory allocated does not depend on the
+     * size of the source as long as the lex eaters implement {@link LexEater#scan(LexInput)} without allocation, like
+     * the lex eaters of the library do. The ignored elements are not passed to the sink. If the source cannot be
+     * analyzed, then the sink receives the elements before the erroneous position and the exception is thrown after
+     * that, the same exception as the one thrown by {@link #apply(String)}.
+     *
+     * @param source the Java source code to analyze
+     * @param sink   the receiver of the elements
+     */
+    public void scan(CharSequence source, TokenSink sink) {
+        final var code = new LexInput(source);
+        while (code.length() > 0) {
+            final int start = code.position();
+            final var type = scanNext(code);
+            if (!ignore(type)) {
+                sink.token(type, start, code.position());
+            }
+        }
+    }
+
+    /**
+     * Perform the lexical analysis of a UTF-8 encoded source file.
+     * <p>
+     * Large files are mapped into the memory, see {@link MappedSource#map(Path)}. When the file contains only ASCII
+     * characters, the lexical analysis reads the content directly and only the lexemes are copied to the heap. The
+     * returned elements do not refer to the mapped file.
+     *
+     * @param path the Java source file to analyze
+     * @return the array of the lexical elements
+     * @throws IOException if the file cannot be read or it is not UTF-8 encoded
+     */
+    public LexicalElement[] lex(Path path) throws IOException {
+        return lex(MappedSource.map(path));
+    }
+
+    /**
+     * Lex a UTF-8 encoded source file as a stream. See {@link #iterator(Reader)}.
+     * <p>
+     * The file is mapped into the memory segment by segment using {@code long} offsets, thus it may be larger than
+     * 2GB. Closing the stream closes the file.
+     *
+     * @param path the Java source file to analyze
+     * @return the sequential stream of the lexical elements
+     * @throws IOException if the file cannot be opened
+     */
+    public Stream<LexicalElement> stream(Path path) throws IOException {
+        final var reader = new MappedReader(path);
+        return stream(reader).onClose(() -> {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Lex the source read from the reader.
+     * <p>
+     * The returned iterator reads the reader only as far as it is needed to return the next lexical element. The
+     * characters are kept in a fixed size buffer, thus the memory needed does not depend on the size of the input,
+     * only on the size of the largest lexical element. The reader is not closed by the iterator.
+     * <p>
+     * An {@link IOException} thrown by the reader is rethrown as an {@link UncheckedIOException} by the methods of
+     * the iterator.
+     *
+     * @param reader the source of the characters
+     * @return the iterator of the lexical elements
+     */
+    public Iterator<LexicalElement> iterator(Reader reader) {
+        return new StreamingLexer(this, reader, StreamingLexer.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Lex the source read from the reader. See {@link #iterator(Reader)}.
+     *
+     * @param reader the source of the characters
+     * @return the sequential stream of the lexical elements
+     */
+    public Stream<LexicalElement> stream(Reader reader) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(reader), Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Lex the source read from the reader as a reactive publisher. See {@link #iterator(Reader)}.
+     * <p>
+     * The elements are recognized only when the subscriber requests them, thus a slow subscriber does not make the
+     * lexer buffer the elements. The publisher accepts only one subscriber. The reader is not closed.
+     *
+     * @param reader the source of the characters
+     * @return the publisher of the lexical elements
+     */
+    public Flow.Publisher<LexicalElement> publisher(Reader reader) {
+        return new LexicalElementPublisher(iterator(reader));
+    }
+
+    /**
+     * Create a lexer that is fed with the source chunk by chunk, for example by the completion handler of an
+     * asynchronous channel, and passes the elements to the consumer as soon as they are recognized. See {@link
+     * ChunkedLexer}.
+     *
+     * @param consumer the consumer of the lexical elements
+     * @return the new chunked lexer
+     */
+    public ChunkedLexer chunked(Consumer<? super LexicalElement> consumer) {
+        return new ChunkedLexer(this, consumer);
     }
 
     /**
@@ -90,32 +444,95 @@ public class Lexer implements Function<String, javax0.javalex.LexicalElement[]>
      */
     private final javax0.javalex.lex.LexEater[] lexEaters;
 
+    /**
+     * The lex eaters that are tried when the next character is ASCII, indexed by the character. Non-ASCII characters
+     * fall back to the whole {@link #lexEaters} array.
+     */
+    private final LexEater[][] dispatch;
 
-    private LexicalElement next(StringBuilder sb) {
-        boolean repeat = true;
-        while (repeat) {
-            repeat = false;
-            for (final var lexEater : lexEaters) {
-                final var nlextElement = lexEater.apply(sb);
-                if (nlextElement != null) {
-                    if (!ignore(nlextElement)) {
-                        return nlextElement;
-                    }
-                    repeat = true;
-                    break;
+
+    private LexicalElement next(LexInput in) {
+        while (in.length() > 0) {
+            final var element = eatSignificant(in);
+            if (element != null) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Consume one lexical element from the start of the input and return it unless it is ignored.
+     * <p>
+     * The elements of the lex eaters that declare an ignored {@link LexEater#type()}, like the spaces and comments
+     * when the lexer is not space or comment sensitive, are skipped using {@link LexEater#scan(LexInput)}, thus no
+     * object is created for them.
+     *
+     * @param in the input, which must not be empty
+     * @return the lexical element or {@code null} if the consumed element is ignored
+     * @throws IllegalArgumentException if none of the lex eaters recognizes the start of the input
+     */
+    LexicalElement eatSignificant(LexInput in) {
+        final char ch = in.charAt(0);
+        for (final var lexEater : ch < ASCII ? dispatch[ch] : lexEaters) {
+            final var type = lexEater.type();
+            if (type != null && ignore(type)) {
+                if (lexEater.scan(in) != null) {
+                    return null;
+                }
+            } else {
+                final var element = lexEater.apply(in);
+                if (element != null) {
+                    return ignore(element) ? null : element;
                 }
             }
         }
-        if (sb.length() > 0) {
-            throw new IllegalArgumentException("Cannot analyze Java source code at " + sb.toString());
+        throw new IllegalArgumentException("Cannot analyze Java source code at " + in);
+    }
+
+    /**
+     * Consume one lexical element from the start of the input, whether it is ignored or not.
+     *
+     * @param in the input, which must not be empty
+     * @return the lexical element
+     * @throws IllegalArgumentException if none of the lex eaters recognizes the start of the input
+     */
+    LexicalElement eat(LexInput in) {
+        final char ch = in.charAt(0);
+        for (final var lexEater : ch < ASCII ? dispatch[ch] : lexEaters) {
+            final var element = lexEater.apply(in);
+            if (element != null) {
+                return element;
+            }
+        }
+        throw new IllegalArgumentException("Cannot analyze Java source code at " + in);
+    }
+
+    /**
+     * Consume one lexical element from the start of the input without creating the element object. See {@link
+     * #eat(LexInput)}.
+     *
+     * @param in the input, which must not be empty
+     * @return the type of the consumed element
+     */
+    private javax0.javalex.LexicalElement.Type scanNext(LexInput in) {
+        final char ch = in.charAt(0);
+        for (final var lexEater : ch < ASCII ? dispatch[ch] : lexEaters) {
+            final var type = lexEater.scan(in);
+            if (type != null) {
+                return type;
+            }
         }
-        return null;
+        throw new IllegalArgumentException("Cannot analyze Java source code at " + in);
+    }
 
+    boolean ignore(LexicalElement nlextElement) {
+        return ignore(nlextElement.getType());
     }
 
-    private boolean ignore(LexicalElement nlextElement) {
-        return (!spaceSensitive && nlextElement.getType() == javax0.javalex.LexicalElement.Type.SPACING) ||
-            (!commentSensitive && nlextElement.getType() == javax0.javalex.LexicalElement.Type.COMMENT);
+    private boolean ignore(javax0.javalex.LexicalElement.Type type) {
+        return (!spaceSensitive && type == javax0.javalex.LexicalElement.Type.SPACING) ||
+            (!commentSensitive && type == javax0.javalex.LexicalElement.Type.COMMENT);
     }
 
 }
@@ -2,24 +2,82 @@ package javax0.javalex.lex;
 
 
 import javax0.javalex.lex.eaters.utils.Escape;
+import javax0.javalex.lex.eaters.utils.NumberValue;
 
 import java.util.Objects;
 
 public class LexicalElement implements javax0.javalex.LexicalElement {
 
     public LexicalElement(String lexeme, Type type) {
-        this.lexeme = lexeme;
+        this(lexeme, null, type);
+    }
+
+    /**
+     * Create a lexical element that also has an original form, which
+     * is the case for strings and characters.
+     *
+     * @param lexeme   the lexeme or {@code null} if it has to be
+     *                 decoded from the original when it is first
+     *                 requested
+     * @param original the characters of the literal as they are in the
+     *                 source code, without the enclosing characters
+     * @param type     the type of the element
+     */
+    protected LexicalElement(String lexeme, String original, Type type) {
         this.type = type;
+        this.original = original;
+        this.lexeme = lexeme;
     }
 
+    /**
+     * Get the lexeme. The lexeme of string and character literals
+     * created from the original form is decoded when it is first
+     * requested.
+     *
+     * @return the lexeme
+     */
     public String getLexeme() {
+        if (lexeme == null && original != null) {
+            lexeme = decode(original);
+        }
         return lexeme;
     }
 
+    /**
+     * Decode the escape sequences of the original form of a string or
+     * character literal.
+     *
+     * @param original the original form of the literal
+     * @return the decoded lexeme
+     */
+    String decode(String original) {
+        return Escape.escape(original);
+    }
+
     public void setLexeme(final String lexeme) {
         this.lexeme = lexeme;
     }
 
+    /**
+     * Replace the lexeme with an equal string kept in a {@link
+     * SymbolTable}, so that the elements of a store share the lexeme
+     * strings.
+     *
+     * @param lexeme the string equal to the lexeme
+     */
+    void shareLexeme(final String lexeme) {
+        this.lexeme = lexeme;
+    }
+
+    /**
+     * @return the {@link Keyword} code of the element if it is an
+     * identifier that is a keyword or a contextual keyword, otherwise
+     * {@link Keyword#NO_KEYWORD}
+     */
+    public int getKeyword() {
+        return type == Type.IDENTIFIER && getLexeme() != null ? Keyword.code(getLexeme()) : Keyword.NO_KEYWORD;
+    }
+
     public void setOriginal(final String original) {
         if( type != Type.CHARACTER && type != Type.STRING ){
             throw new RuntimeException("Setting the original is possible only in case the lexeme is character or string");
@@ -43,12 +101,12 @@ public class LexicalElement implements javax0.javalex.LexicalElement {
     public String getFullLexeme() {
         if (type == javax0.javalex.LexicalElement.Type.STRING) {
             final String enclosing = ((StringLiteral) this).enclosing;
-            return enclosing + this.lexeme + enclosing;
+            return enclosing + getLexeme() + enclosing;
         }
         if (type == javax0.javalex.LexicalElement.Type.CHARACTER) {
-            return "'" + this.lexeme + "'";
+            return "'" + getLexeme() + "'";
         }
-        return this.lexeme;
+        return getLexeme();
     }
 
     @Override
@@ -56,7 +114,7 @@ public class LexicalElement implements javax0.javalex.LexicalElement {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         LexicalElement that = (LexicalElement) o;
-        return lexeme.equals(that.lexeme);
+        return getLexeme().equals(that.getLexeme());
     }
 
     @Override
@@ -66,34 +124,64 @@ public class LexicalElement implements javax0.javalex.LexicalElement {
 
     @Override
     public int hashCode() {
-        return Objects.hash(lexeme);
+        return Objects.hashCode(getLexeme());
     }
 
     @Override
     public String toString() {
-        return type.toString() + "[" + lexeme + "]";
+        return type.toString() + "[" + getLexeme() + "]";
     }
 
+    /**
+     * The lexeme of the element.
+     *
+     * @deprecated use {@link #getLexeme()} and {@link
+     * #setLexeme(String)}. The lexeme of a string or character literal
+     * created by the lexer is {@code null} until {@link #getLexeme()}
+     * decodes it from the original.
+     */
+    @Deprecated
     public String lexeme;
+    /**
+     * The characters of a string or character literal as they are in
+     * the source code, without the enclosing characters.
+     *
+     * @deprecated use {@link #getOriginalLexeme()} and {@link
+     * #setOriginal(String)}
+     */
+    @Deprecated
     public String original;
     public final Type type;
 
     public static class IntegerLiteral extends LexicalElement {
-        public final long value;
+        private long value;
+        private volatile boolean decoded = false;
 
         public IntegerLiteral(String lexeme) {
             super(lexeme, Type.INTEGER);
-            final int radix;
-            if (lexeme.startsWith("0x") || lexeme.startsWith("0X")) {
-                radix = 16;
-                lexeme = lexeme.substring(2);
-            } else {
-                radix = 10;
-            }
-            if (lexeme.toUpperCase().endsWith("L")) {
-                lexeme = lexeme.substring(0, lexeme.length() - 1);
+        }
+
+        /**
+         * Get the value of the literal. The value is decoded from the
+         * lexeme when it is first requested and then cached, see
+         * {@link NumberValue#integer(CharSequence)}.
+         *
+         * @return the value of the literal
+         * @throws NumberFormatException if the lexeme is not a valid
+         *                               integer literal
+         */
+        public long getValue() {
+            if (!decoded) {
+                value = NumberValue.integer(getLexeme());
+                decoded = true;
             }
-            value = Long.parseLong(lexeme, radix);
+            return value;
+        }
+
+        @Override
+        public void setLexeme(String lexeme) {
+            super.setLexeme(lexeme);
+            decoded = false;
         }
 
         @Override
@@ -101,21 +189,44 @@ public class LexicalElement implements javax0.javalex.LexicalElement {
             if (this == o) return true;
             if (o == null || getClass() != o.getClass()) return false;
             IntegerLiteral literal = (IntegerLiteral) o;
-            return value == literal.value;
+            return getValue() == literal.getValue();
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(value);
+            return Long.hashCode(getValue());
         }
     }
 
     public static class FloatLiteral extends LexicalElement {
-        public final double value;
+        private double value;
+        private volatile boolean decoded = false;
 
         public FloatLiteral(String lexeme) {
             super(lexeme, Type.FLOAT);
-            value = Double.parseDouble(lexeme);
+        }
+
+        /**
+         * Get the value of the literal. The value is decoded from the
+         * lexeme when it is first requested and then cached, see
+         * {@link NumberValue#floating(String)}.
+         *
+         * @return the value of the literal
+         * @throws NumberFormatException if the lexeme is not a valid
+         *                               float literal
+         */
+        public double getValue() {
+            if (!decoded) {
+                value = NumberValue.floating(getLexeme());
+                decoded = true;
+            }
+            return value;
+        }
+
+        @Override
+        public void setLexeme(String lexeme) {
+            super.setLexeme(lexeme);
+            decoded = false;
         }
 
         @Override
@@ -123,12 +234,12 @@ public class LexicalElement implements javax0.javalex.LexicalElement {
             if (this == o) return true;
             if (o == null || getClass() != o.getClass()) return false;
             FloatLiteral literal = (FloatLiteral) o;
-            return Double.compare(literal.value, value) == 0;
+            return Double.compare(literal.getValue(), getValue()) == 0;
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(value);
+            return Double.hashCode(getValue());
         }
     }
 
@@ -142,16 +253,48 @@ public class LexicalElement implements javax0.javalex.LexicalElement {
         public final String enclosing;
 
         public StringLiteral(String lexeme, String original, String enclosing) {
-            super(lexeme, Type.STRING);
-            this.original = original;
+            super(lexeme, original, Type.STRING);
             this.enclosing = enclosing;
         }
+
+        /**
+         * Create a string literal from its original form. The escape
+         * sequences are decoded when the lexeme is first requested. If
+         * there is nothing to decode then the lexeme is the same string
+         * as the original.
+         *
+         * @param original  the characters between the enclosing
+         *                  delimiters as they are in the source code
+         * @param enclosing the delimiter, {@code "} or {@code """}
+         * @return the new string literal
+         */
+        public static StringLiteral fromOriginal(String original, String enclosing) {
+            final boolean textBlock = enclosing.length() > 1;
+            final boolean plain = original.indexOf('\\') == -1 && !(textBlock && original.indexOf('\r') != -1);
+            return new StringLiteral(plain ? original : null, original, enclosing);
+        }
+
+        @Override
+        String decode(String original) {
+            return enclosing.length() > 1 ? Escape.escapeMultiLine(original) : Escape.escape(original);
+        }
     }
 
     public static class CharacterLiteral extends LexicalElement {
         public CharacterLiteral(String lexeme, String original) {
-            super(lexeme, Type.CHARACTER);
-            this.original = original;
+            super(lexeme, original, Type.CHARACTER);
+        }
+
+        /**
+         * Create a character literal from its original form. The escape
+         * sequences are decoded when the lexeme is first requested.
+         *
+         * @param original the characters between the apostrophes as
+         *                 they are in the source code
+         * @return the new character literal
+         */
+        public static CharacterLiteral fromOriginal(String original) {
+            return new CharacterLiteral(original.indexOf('\\') == -1 ? original : null, original);
         }
     }
 
@@ -159,6 +302,13 @@ public class LexicalElement implements javax0.javalex.LexicalElement {
         public Identifier(String lexeme) {
             super(lexeme, Type.IDENTIFIER);
         }
+
+        /**
+         * @param keyword the {@link Keyword} code of the identifier
+         */
+        public Identifier(int keyword) {
+            super(Keyword.name(keyword), Type.IDENTIFIER);
+        }
     }
 
     public static class Spacing extends LexicalElement {
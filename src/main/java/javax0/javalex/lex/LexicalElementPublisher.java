@@ -0,0 +1,105 @@
+package javax0.javalex.lex;
+
+import java.util.Iterator;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A publisher of the lexical elements returned by an iterator, typically the streaming lexer of a reader.
+ * <p>
+ * The elements are produced only on demand. The next element is recognized when the subscriber requested it, thus the
+ * publisher does not buffer anything besides the buffer of the iterator. The elements are delivered synchronously on
+ * the thread calling {@link Flow.Subscription#request(long)}. A request made from {@code onNext} does not recurse, the
+ * element is delivered by the loop that is already running.
+ * <p>
+ * The iterator can be consumed only once, thus the publisher accepts only one subscriber.
+ */
+class LexicalElementPublisher implements Flow.Publisher<LexicalElement> {
+    private final Iterator<LexicalElement> elements;
+    private final AtomicBoolean subscribed = new AtomicBoolean(false);
+
+    LexicalElementPublisher(Iterator<LexicalElement> elements) {
+        this.elements = elements;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super LexicalElement> subscriber) {
+        if (subscribed.getAndSet(true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("The lexical elements can be published only to one subscriber."));
+            return;
+        }
+        final var subscription = new Subscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private class Subscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super LexicalElement> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean done = false;
+        private volatile Throwable invalidRequest = null;
+
+        private Subscription(Flow.Subscriber<? super LexicalElement> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("The number of requested elements must be positive, it was " + n);
+            } else {
+                demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            done = true;
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                while (!done) {
+                    if (invalidRequest != null) {
+                        done = true;
+                        subscriber.onError(invalidRequest);
+                        break;
+                    }
+                    if (demand.get() == 0) {
+                        break;
+                    }
+                    final LexicalElement element;
+                    try {
+                        if (!elements.hasNext()) {
+                            done = true;
+                            subscriber.onComplete();
+                            break;
+                        }
+                        element = elements.next();
+                    } catch (RuntimeException e) {
+                        done = true;
+                        subscriber.onError(e);
+                        break;
+                    }
+                    demand.decrementAndGet();
+                    subscriber.onNext(element);
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+    }
+}
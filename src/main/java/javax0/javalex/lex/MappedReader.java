@@ -0,0 +1,103 @@
+package javax0.javalex.lex;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A reader that reads a UTF-8 encoded file mapping it into the memory segment by segment.
+ * <p>
+ * The file offsets are {@code long} values, thus the file can be larger than 2GB. Only one segment is mapped at a
+ * time. ASCII bytes are converted to characters directly, the rest is decoded using a UTF-8 decoder. A leading byte
+ * order mark is skipped.
+ */
+class MappedReader extends Reader {
+    private static final long SEGMENT_SIZE = 1L << 28;
+    /**
+     * The longest UTF-8 encoded character. When fewer bytes remain in a segment the next segment is mapped starting at
+     * the first unread byte, so that no character is split between two segments.
+     */
+    private static final int MAX_CHAR_BYTES = 4;
+
+    private final FileChannel channel;
+    private final long size;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+    private long offset = 0;
+    private MappedByteBuffer segment = null;
+
+    MappedReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        size = channel.size();
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!map()) {
+            return -1;
+        }
+        int n = 0;
+        int position = segment.position();
+        final int limit = segment.limit();
+        while (n < len && position < limit) {
+            final byte b = segment.get(position);
+            if (b < 0) {
+                break;
+            }
+            cbuf[off + n++] = (char) b;
+            position++;
+        }
+        segment.position(position);
+        if (n < len && position < limit) {
+            final var out = CharBuffer.wrap(cbuf, off + n, len - n);
+            final var result = decoder.decode(segment, out, offset + limit == size);
+            if (result.isError()) {
+                result.throwException();
+            }
+            n = out.position() - off;
+            if (n == 0) {
+                remap();
+                return read(cbuf, off, len);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Make sure that there is a mapped segment with some bytes to read, or with fewer bytes than a character if the
+     * file ends.
+     *
+     * @return {@code false} if all the bytes of the file were read
+     * @throws IOException if the file cannot be mapped
+     */
+    private boolean map() throws IOException {
+        if (segment == null || (segment.remaining() < MAX_CHAR_BYTES && offset + segment.limit() < size)) {
+            remap();
+        }
+        return segment.hasRemaining();
+    }
+
+    private void remap() throws IOException {
+        final boolean first = segment == null;
+        if (!first) {
+            offset += segment.position();
+        }
+        segment = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(SEGMENT_SIZE, size - offset));
+        if (first && Utf8Source.hasBom(segment)) {
+            segment.position(3);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
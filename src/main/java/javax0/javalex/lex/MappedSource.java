@@ -0,0 +1,77 @@
+package javax0.javalex.lex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Utility class to access UTF-8 encoded source files through memory mapping.
+ * <p>
+ * Only the files of at least {@link #MIN_MAPPED_SIZE} bytes are mapped, the smaller files are read into the heap,
+ * because mapping a file costs more than reading a small file, and every mapping is a resource of the operating
+ * system.
+ * <p>
+ * A mapped file stays mapped as long as the buffer, or any character sequence, store or {@code JavaLexed} object
+ * created from it, is reachable. It is unmapped by the garbage collector, there is no way to unmap it earlier. The file
+ * must not be truncated or modified while it is mapped: the lexemes of the elements are created from the mapped bytes
+ * when they are first requested, thus a modified file gives wrong elements, and reading a truncated file makes the
+ * JVM crash.
+ */
+public class MappedSource {
+    /**
+     * The files smaller than this are read into the heap instead of mapping them.
+     */
+    public static final int MIN_MAPPED_SIZE = 1 << 20;
+
+    private MappedSource() {
+    }
+
+    /**
+     * Map the file into the memory and return the content as a character sequence.
+     * <p>
+     * When the file contains only ASCII characters, which is the usual case for Java sources, the returned sequence is
+     * a view of the bytes of the file and the characters are not copied again. Otherwise, the content is decoded from
+     * UTF-8. See {@link Utf8Source#of(ByteBuffer)}. Files smaller than {@link #MIN_MAPPED_SIZE} are read into the heap
+     * instead of mapping them, see the lifetime of the mapped files in the class documentation.
+     *
+     * @param path the file to map
+     * @return the content of the file
+     * @throws IOException              if the file cannot be read or it is not a valid UTF-8 file
+     * @throws IllegalArgumentException if the file is larger than 2GB. Such files can only be processed as a stream,
+     *                                  see {@link Lexer#stream(Path)}
+     */
+    public static CharSequence map(Path path) throws IOException {
+        final var content = content(path);
+        try {
+            return Utf8Source.of(content);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("The file '" + path + "' is not UTF-8 encoded.", e);
+        }
+    }
+
+    /**
+     * @param path the file to read
+     * @return the bytes of the file, read into the heap if the file is smaller than {@link #MIN_MAPPED_SIZE},
+     * otherwise mapped
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file is larger than 2GB
+     */
+    static ByteBuffer content(Path path) throws IOException {
+        try (final var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("The file '" + path + "' is " + size + " bytes long, it is too large to be mapped as a single source.");
+            }
+            if (size >= MIN_MAPPED_SIZE) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            final var content = ByteBuffer.allocate((int) size);
+            while (content.hasRemaining() && channel.read(content) >= 0) {
+                // the file may be shorter than its size was when it is modified meanwhile
+            }
+            return content.flip();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package javax0.javalex.lex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Lex a large source on several threads.
+ * <p>
+ * The source is split into chunks, each starting after a new line. The chunks are lexed speculatively in parallel on
+ * the common {@link ForkJoinPool}, each from its start until the first element that ends at or after the start of the
+ * next chunk. A chunk may start inside a comment, string or text block, in which case its elements are wrong until
+ * the lexing gets in sync with the real element boundaries, if ever.
+ * <p>
+ * The chunks are reconciled in order. The lexical analysis from a given position always gives the same elements,
+ * thus if the end of the elements accepted so far is the start of an element in the next chunk, then the elements of
+ * the chunk from that element on are correct. If it is not, then the source is lexed sequentially from the end of the
+ * accepted elements until it gets in sync with an element start of the chunk. The result is the same as the result
+ * of the sequential lexical analysis, including the exception if the source cannot be analyzed.
+ */
+class ParallelLexer {
+    /**
+     * The minimum number of characters in a chunk, so that the speculative work is not wasted on tiny chunks.
+     */
+    static final int MIN_CHUNK_SIZE = 1 << 16;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private ParallelLexer() {
+    }
+
+    /**
+     * @param lexer  the lexer, which has to be thread safe
+     * @param source the source to analyze
+     * @return the elements that are not ignored by the lexer
+     */
+    static List<LexicalElement> lex(Lexer lexer, CharSequence source) {
+        final int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        return lex(lexer, source, Math.max(MIN_CHUNK_SIZE, source.length() / (CHUNKS_PER_THREAD * parallelism)));
+    }
+
+    static List<LexicalElement> lex(Lexer lexer, CharSequence source, int chunkSize) {
+        final var chunks = split(lexer, source, chunkSize);
+        ForkJoinTask.invokeAll(chunks);
+        return reconcile(lexer, source, chunks);
+    }
+
+    private static List<Chunk> split(Lexer lexer, CharSequence source, int chunkSize) {
+        final var chunks = new ArrayList<Chunk>();
+        final int length = source.length();
+        int from = 0;
+        while (from < length) {
+            int to = Math.min(length, from + chunkSize);
+            while (to < length && source.charAt(to - 1) != '\n') {
+                to++;
+            }
+            chunks.add(new Chunk(lexer, source, from, to));
+            from = to;
+        }
+        return chunks;
+    }
+
+    private static List<LexicalElement> reconcile(Lexer lexer, CharSequence source, List<Chunk> chunks) {
+        final var result = new ArrayList<LexicalElement>();
+        final var in = new LexInput(source);
+        for (final var chunk : chunks) {
+            int index;
+            while ((index = chunk.indexOf(in.position())) < 0 && in.position() < chunk.end) {
+                add(result, lexer.eatSignificant(in));
+            }
+            if (index >= 0) {
+                for (int i = index; i < chunk.elements.size(); i++) {
+                    add(result, chunk.elements.get(i));
+                }
+                in.skip(chunk.end - in.position());
+            }
+        }
+        while (in.length() > 0) {
+            add(result, lexer.eatSignificant(in));
+        }
+        return result;
+    }
+
+    private static void add(List<LexicalElement> result, LexicalElement element) {
+        if (element != null) {
+            result.add(element);
+        }
+    }
+
+    private static class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Lexer lexer;
+        private final CharSequence source;
+        private final int from;
+        private final int to;
+        /**
+         * The elements recognized in the chunk, {@code null} for the ignored elements, so that their start is also
+         * recorded.
+         */
+        private final List<LexicalElement> elements = new ArrayList<>();
+        private int[] starts = new int[16];
+        /**
+         * The position after the last element that could be lexed. If the lexing failed, this is the start of the
+         * element that could not be analyzed.
+         */
+        private int end;
+
+        private Chunk(Lexer lexer, CharSequence source, int from, int to) {
+            this.lexer = lexer;
+            this.source = source;
+            this.from = from;
+            this.to = to;
+            this.end = from;
+        }
+
+        @Override
+        protected void compute() {
+            final var in = new LexInput(source, from, source.length());
+            try {
+                while (in.position() < to) {
+                    final int start = in.position();
+                    final var element = lexer.eatSignificant(in);
+                    if (elements.size() == starts.length) {
+                        starts = Arrays.copyOf(starts, 2 * starts.length);
+                    }
+                    starts[elements.size()] = start;
+                    elements.add(element);
+                    end = in.position();
+                }
+            } catch (RuntimeException e) {
+                // the chunk probably started inside a comment or literal, the reconciliation lexes this part again
+            }
+        }
+
+        /**
+         * @param position a position in the source
+         * @return the index of the element starting at the position or -1 if there is no such element
+         */
+        private int indexOf(int position) {
+            final int index = Arrays.binarySearch(starts, 0, elements.size(), position);
+            return index < 0 ? -1 : index;
+        }
+    }
+}
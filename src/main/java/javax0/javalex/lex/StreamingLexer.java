@@ -0,0 +1,116 @@
+package javax0.javalex.lex;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An iterator that reads the source from a {@link Reader} and returns the lexical elements one by one.
+ * <p>
+ * The characters are read into a fixed size buffer and the lexical elements are recognized in the window of the
+ * buffer that was not consumed yet. When a lexical element reaches the end of the window (see {@link WindowInput}),
+ * the not yet consumed characters are moved to the start of the buffer, the buffer is refilled from the reader and
+ * the element is recognized again. That way the memory use does not depend on the size of the input. The buffer grows
+ * only if a single lexical element, for example a long comment, does not fit into it.
+ */
+class StreamingLexer implements Iterator<LexicalElement> {
+    static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+
+    private final Lexer lexer;
+    private final Reader reader;
+    private char[] buffer;
+    private CharSequence window;
+    private int start = 0;
+    private int end = 0;
+    private boolean eof = false;
+    private LexicalElement next = null;
+
+    StreamingLexer(Lexer lexer, Reader reader, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("The buffer size must be positive, it was " + bufferSize);
+        }
+        this.lexer = lexer;
+        this.reader = reader;
+        this.buffer = new char[bufferSize];
+        this.window = new CharArraySequence(buffer, 0);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = fetch();
+        }
+        return next != null;
+    }
+
+    @Override
+    public LexicalElement next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("There are no more lexical elements in the input.");
+        }
+        final var element = next;
+        next = null;
+        return element;
+    }
+
+    private LexicalElement fetch() {
+        while (true) {
+            if (start == end) {
+                if (eof) {
+                    return null;
+                }
+                read();
+                continue;
+            }
+            final var in = new WindowInput(window, start, end);
+            final LexicalElement element;
+            try {
+                element = lexer.eatSignificant(in);
+            } catch (RuntimeException e) {
+                if (eof || !in.reachedEnd()) {
+                    throw e;
+                }
+                read();
+                continue;
+            }
+            if (!eof && in.reachedEnd()) {
+                read();
+                continue;
+            }
+            start = in.position();
+            if (element != null) {
+                return element;
+            }
+        }
+    }
+
+    /**
+     * Move the not yet consumed characters to the start of the buffer, grow the buffer if it is full and read more
+     * characters from the reader.
+     */
+    private void read() {
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            end -= start;
+            start = 0;
+        }
+        if (end == buffer.length) {
+            final var grown = new char[buffer.length * 2];
+            System.arraycopy(buffer, 0, grown, 0, end);
+            buffer = grown;
+        }
+        try {
+            final int n = reader.read(buffer, end, buffer.length - end);
+            if (n < 0) {
+                eof = true;
+            } else {
+                end += n;
+            }
+            window = new CharArraySequence(buffer, end);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package javax0.javalex.lex;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A thread-safe table that assigns an {@code int} ID to every distinct identifier and symbol lexeme.
+ * <p>
+ * Every {@link TokenStore} keeps the ID of its identifiers and symbols in a table, so that they can be compared without
+ * comparing the strings: two such elements of the store have the same lexeme if and only if they have the same ID.
+ * The elements created by the store also share the lexeme string stored in the table. The IDs are meaningful only in
+ * the table that assigned them. The table of a store is created by {@link Lexer#tokenize(CharSequence)}, or it can be
+ * shared by the stores of a corpus using {@link Lexer#tokenize(CharSequence, SymbolTable)}. The table grows with the
+ * number of distinct lexemes registered in it, and it is released together with the stores that use it.
+ * <p>
+ * The IDs from zero to {@link Keyword#COUNT} - 1 are reserved for the {@link Keyword keywords} in every table, thus
+ * the ID of a keyword is its keyword code. The keywords are not stored in the table.
+ * <p>
+ * Lookups are lock free, only the registration of a new lexeme is synchronized.
+ */
+public class SymbolTable {
+    /**
+     * The ID of the elements that are not identifiers or symbols.
+     */
+    public static final int NO_ID = -1;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] lexemes = new String[16];
+    private int size = 0;
+
+    /**
+     * Create an empty table, which knows only the keywords.
+     */
+    public SymbolTable() {
+    }
+
+    /**
+     * Get the ID of the lexeme registering it if it is not in the table yet.
+     *
+     * @param lexeme the lexeme
+     * @return the ID of the lexeme
+     */
+    public int intern(String lexeme) {
+        final int keyword = Keyword.code(lexeme);
+        if (keyword != Keyword.NO_KEYWORD) {
+            return keyword;
+        }
+        final var id = ids.get(lexeme);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            final var existing = ids.get(lexeme);
+            if (existing != null) {
+                return existing;
+            }
+            var table = lexemes;
+            if (size == table.length) {
+                table = Arrays.copyOf(table, 2 * table.length);
+            }
+            table[size] = lexeme;
+            lexemes = table;
+            final int newId = Keyword.COUNT + size++;
+            ids.put(lexeme, newId);
+            return newId;
+        }
+    }
+
+    /**
+     * Get the ID of the lexeme without registering it.
+     *
+     * @param lexeme the lexeme
+     * @return the ID of the lexeme or {@link #NO_ID} if the lexeme is not in the table
+     */
+    public int find(String lexeme) {
+        final int keyword = Keyword.code(lexeme);
+        if (keyword != Keyword.NO_KEYWORD) {
+            return keyword;
+        }
+        final var id = ids.get(lexeme);
+        return id == null ? NO_ID : id;
+    }
+
+    /**
+     * @param id the ID returned by {@link #intern(String)}
+     * @return the lexeme string stored in the table
+     */
+    public String lexeme(int id) {
+        return id < Keyword.COUNT ? Keyword.name(id) : lexemes[id - Keyword.COUNT];
+    }
+}
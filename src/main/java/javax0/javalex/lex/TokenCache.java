@@ -0,0 +1,260 @@
+package javax0.javalex.lex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * A directory backed cache of the lexical analysis of source files.
+ * <p>
+ * The key of an entry is the SHA-256 hash of the content of the source file and the configuration of the lexer, which
+ * is the sensitivity and the classes of the lex eaters. Thus a changed file or a differently configured lexer never
+ * gets a stale result, and the same content is analyzed only once even if it is in several files. The entries are stored in the format of
+ * {@link TokenStore#write(Path)} and they are loaded by {@link Lexer#load(Path)}.
+ * <p>
+ * Several threads and several JVMs can use the same directory at the same time. An entry is written into a temporary
+ * file and moved to its place atomically, thus a reader never sees a partially written entry, and reading needs no
+ * lock. The entries are evicted in the least recently used order, using the last modification time of the entry files,
+ * which is updated when an entry is used. The eviction runs after every {@code maxSize / 8} bytes written by this
+ * instance, or when {@link #evict()} is called, and it holds an exclusive {@link java.nio.channels.FileLock} on the
+ * {@code lock} file of the directory, so that only one process evicts at a time. The size of the directory may exceed
+ * the limit between two evictions.
+ * <p>
+ * The cache can not see the state of the lex eaters, only their classes. The lexers that use lex eaters of the same
+ * class but configured differently must not share a cache directory.
+ */
+public class TokenCache {
+    private static final String EXTENSION = ".jlex";
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+    private static final String LOCK_FILE = "lock";
+    /**
+     * The temporary files older than this are left behind by a crashed process and are deleted during the eviction.
+     */
+    private static final long STALE_TEMPORARY_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    /**
+     * Serializes the eviction of the instances in this JVM.
+     */
+    private static final Object EVICTION_LOCK = new Object();
+
+    private final Path directory;
+    private final long maxSize;
+    private final AtomicLong writtenSinceEviction = new AtomicLong();
+
+    /**
+     * @param directory the directory of the cache, it is created if it does not exist
+     * @param maxSize   the maximum size of the entries in bytes
+     * @throws IOException if the directory cannot be created
+     */
+    public TokenCache(Path directory, long maxSize) throws IOException {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("The maximum size of the cache must not be negative, it was " + maxSize);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Get the lexical elements of the UTF-8 encoded source file from the cache, or analyze the file and store the
+     * result in the cache if it is not there yet.
+     * <p>
+     * The returned store is the same as the one returned by {@link Lexer#tokenize(ByteBuffer)} for the content of the
+     * file. When it comes from the cache, its source is read from the cache entry. If the result cannot be stored, for
+     * example the disk is full, the result is returned without storing it.
+     * <p>
+     * The source file and the cache entry are read into the heap unless they are at least {@link
+     * MappedSource#MIN_MAPPED_SIZE} bytes long. A large source file or entry is mapped, and it stays mapped as long as
+     * the returned store is reachable, see {@link MappedSource}. The entries are replaced and evicted by moving and
+     * deleting the files, which does not change the content of a mapped entry.
+     *
+     * @param path  the source file
+     * @param lexer the lexer to analyze the source when it is not in the cache
+     * @return the lexical elements of the file
+     * @throws IOException      if the source file cannot be read or it is not UTF-8 encoded
+     * @throws RuntimeException the same exception as {@link Lexer#tokenize(CharSequence)} if the source cannot be
+     *                          analyzed
+     */
+    public TokenStore tokenize(Path path, Lexer lexer) throws IOException {
+        final var content = MappedSource.content(path);
+        final var entry = entry(key(content, lexer));
+        final var cached = load(entry, lexer);
+        if (cached != null) {
+            return cached;
+        }
+        final CharSequence source;
+        try {
+            source = Utf8Source.of(content);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("The file '" + path + "' is not UTF-8 encoded.", e);
+        }
+        final var store = lexer.tokenize(source);
+        store(entry, store);
+        return store;
+    }
+
+    /**
+     * Delete the least recently used entries until the size of the entries is not more than the maximum size. The
+     * temporary files left behind by crashed processes are also deleted. The method waits if another thread or another
+     * process is evicting.
+     * <p>
+     * A file lock is held on behalf of the whole JVM, and closing any channel of the file releases it. Therefore, the
+     * threads of this JVM evict one after the other, and only one of them holds the file lock at a time.
+     *
+     * @throws IOException if the directory cannot be listed or locked
+     */
+    public void evict() throws IOException {
+        writtenSinceEviction.set(0);
+        synchronized (EVICTION_LOCK) {
+            try (final var channel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                final var lock = channel.lock();
+                try {
+                    evictEntries();
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+    }
+
+    private void evictEntries() throws IOException {
+        final var entries = new ArrayList<Entry>();
+        long size = 0;
+        final long staleBefore = System.currentTimeMillis() - STALE_TEMPORARY_MILLIS;
+        try (final var files = Files.walk(directory, 2)) {
+            for (final var file : files.collect(Collectors.toList())) {
+                final var name = file.getFileName().toString();
+                final BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                if (!attributes.isRegularFile()) {
+                    continue;
+                }
+                if (name.endsWith(EXTENSION)) {
+                    entries.add(new Entry(file, attributes.size(), attributes.lastModifiedTime()));
+                    size += attributes.size();
+                } else if (name.endsWith(TEMPORARY_EXTENSION) && attributes.lastModifiedTime().toMillis() < staleBefore) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        if (size <= maxSize) {
+            return;
+        }
+        entries.sort(Comparator.comparing(e -> e.lastModified));
+        for (final var entry : entries) {
+            if (size <= maxSize) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(entry.path);
+                size -= entry.size;
+            } catch (IOException e) {
+                // the entry is in use on a platform that does not allow deleting open files, it will be evicted later
+            }
+        }
+    }
+
+    /**
+     * @return the loaded entry, or {@code null} if the entry does not exist or it cannot be loaded
+     */
+    private TokenStore load(Path entry, Lexer lexer) {
+        final TokenStore store;
+        try {
+            store = lexer.load(entry);
+        } catch (IOException e) {
+            // the entry does not exist or it is corrupt, it is replaced by the new result
+            return null;
+        }
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // the entry was evicted meanwhile or the time cannot be set, the entry is only evicted sooner
+        }
+        return store;
+    }
+
+    private void store(Path entry, TokenStore store) {
+        Path temporary = null;
+        try {
+            Files.createDirectories(entry.getParent());
+            temporary = Files.createTempFile(entry.getParent(), null, TEMPORARY_EXTENSION);
+            store.write(temporary);
+            final long size = Files.size(temporary);
+            try {
+                Files.move(temporary, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temporary = null;
+            if (writtenSinceEviction.addAndGet(size) > maxSize / 8) {
+                evict();
+            }
+        } catch (IOException e) {
+            // the cache is an optimization, the result is valid even if it could not be stored
+        } finally {
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the path of the entry, the entries are distributed into subdirectories named after the first two hex
+     * digits of the key, so that no directory gets too large
+     */
+    private Path entry(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key.substring(2) + EXTENSION);
+    }
+
+    private static String key(ByteBuffer content, Lexer lexer) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available, though every Java platform has to support it.", e);
+        }
+        digest.update(("token file version " + TokenFile.VERSION + "," + lexer.configuration() + "\n").getBytes(StandardCharsets.UTF_8));
+        digest.update(content.duplicate());
+        final var hash = digest.digest();
+        final var key = new char[2 * hash.length];
+        for (int i = 0; i < hash.length; i++) {
+            key[2 * i] = HEX[(hash[i] >> 4) & 0x0F];
+            key[2 * i + 1] = HEX[hash[i] & 0x0F];
+        }
+        return new String(key);
+    }
+
+    private static class Entry {
+        private final Path path;
+        private final long size;
+        private final FileTime lastModified;
+
+        private Entry(Path path, long size, FileTime lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package javax0.javalex.lex;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * The binary file format of a {@link TokenStore}.
+ * <p>
+ * The file starts with a header: the magic bytes {@code JLEX}, the version of the format, the sensitivity flags of the
+ * lexer and the length of the source in bytes. The header is followed by the string table containing every distinct
+ * identifier and symbol lexeme once, the number of the elements, the length of the elements in bytes and the elements.
+ * Every element is stored as its kind, the number of characters
+ * between the end of the previous element and the start of the element, its length in characters and, for identifiers
+ * and symbols, the index of the lexeme in the string table. The source itself closes the file, UTF-8 encoded. The
+ * numbers are encoded as unsigned varints, seven bits per byte, the least significant group first, the highest bit set
+ * on all bytes but the last.
+ * <p>
+ * Files of at least {@link MappedSource#MIN_MAPPED_SIZE} bytes are memory mapped when they are read, the smaller files
+ * are read into the heap. The source of the loaded store is a view of the read or mapped bytes when it is ASCII, thus a
+ * mapped file stays mapped as long as the store or any {@code JavaLexed} using it is reachable, and it must not be
+ * modified or truncated meanwhile, see {@link MappedSource}. The lexemes of the string table are registered in the new {@link SymbolTable} of the store once per file
+ * and not once per element, and no lex eater is invoked.
+ */
+class TokenFile {
+    private static final byte[] MAGIC = {'J', 'L', 'E', 'X'};
+    static final int VERSION = 1;
+    private static final int SPACE_SENSITIVE = 0x01;
+    private static final int COMMENT_SENSITIVE = 0x02;
+    private static final int ASCII_SOURCE = 0x04;
+    private static final javax0.javalex.LexicalElement.Type[] TYPES = javax0.javalex.LexicalElement.Type.values();
+
+    private TokenFile() {
+    }
+
+    /**
+     * Write the store into the file.
+     *
+     * @param store the store to write, it must not have been modified
+     * @param path  the file to write, it is overwritten if it exists
+     * @throws IOException           if the file cannot be written or the source cannot be encoded as UTF-8
+     * @throws IllegalStateException if elements were inserted into or removed from the store, or the lexeme of an
+     *                               element was changed
+     */
+    static void write(TokenStore store, Path path) throws IOException {
+        if (store.isModified()) {
+            throw new IllegalStateException("The elements of the store were modified, they do not refer to the source and cannot be written.");
+        }
+        final ByteBuffer source;
+        try {
+            source = StandardCharsets.UTF_8.newEncoder().encode(CharBuffer.wrap(store.source()));
+        } catch (CharacterCodingException e) {
+            throw new IOException("The source cannot be encoded as UTF-8.", e);
+        }
+        final var out = new Output(256);
+        final var lexer = store.lexer();
+        out.bytes(MAGIC);
+        out.varint(VERSION);
+        out.varint((lexer.isSpaceSensitive() ? SPACE_SENSITIVE : 0) | (lexer.isCommentSensitive() ? COMMENT_SENSITIVE : 0)
+            | (source.remaining() == store.source().length() ? ASCII_SOURCE : 0));
+        out.varint(source.remaining());
+
+        final var indexes = new HashMap<Integer, Integer>();
+        final var strings = new Output(256);
+        for (int i = 0; i < store.size(); i++) {
+            final int id = store.sourceId(i);
+            if (id != SymbolTable.NO_ID && !indexes.containsKey(id)) {
+                indexes.put(id, indexes.size());
+                final var lexeme = store.symbols().lexeme(id).getBytes(StandardCharsets.UTF_8);
+                strings.varint(lexeme.length);
+                strings.bytes(lexeme);
+            }
+        }
+        out.varint(indexes.size());
+        out.bytes(strings.buffer, strings.size);
+
+        final var elements = new Output(4 * store.size() + 16);
+        int previousEnd = 0;
+        for (int i = 0; i < store.size(); i++) {
+            final int id = store.sourceId(i);
+            final int start = store.start(i);
+            final int end = store.end(i);
+            elements.varint(store.getType(i).ordinal() << 1 | (id == SymbolTable.NO_ID ? 0 : 1));
+            elements.varint(start - previousEnd);
+            elements.varint(end - start);
+            if (id != SymbolTable.NO_ID) {
+                elements.varint(indexes.get(id));
+            }
+            previousEnd = end;
+        }
+        out.varint(store.size());
+        out.varint(elements.size);
+        out.bytes(elements.buffer, elements.size);
+        try (final var channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final var header = ByteBuffer.wrap(out.buffer, 0, out.size);
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        }
+    }
+
+    /**
+     * Read a store from the file.
+     *
+     * @param path  the file to read
+     * @param lexer the lexer creating the element objects of the store, it must have the same sensitivity as the
+     *              lexer that created the stored elements
+     * @return the store
+     * @throws IOException if the file cannot be read, it is not a valid token file, or it was written from the result
+     *                     of a lexer with a different sensitivity
+     */
+    static TokenStore read(Path path, Lexer lexer) throws IOException {
+        try {
+            return read(path, MappedSource.content(path), lexer);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("The file '" + path + "' is not a valid token file.", e);
+        }
+    }
+
+    private static TokenStore read(Path path, ByteBuffer in, Lexer lexer) throws IOException {
+        final var magic = new byte[MAGIC.length];
+        in.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw invalid(path, "it does not start with the magic bytes");
+        }
+        final int version = varint(in);
+        if (version != VERSION) {
+            throw invalid(path, "its version is " + version + ", the supported version is " + VERSION);
+        }
+        final int flags = varint(in);
+        if (((flags & SPACE_SENSITIVE) != 0) != lexer.isSpaceSensitive() || ((flags & COMMENT_SENSITIVE) != 0) != lexer.isCommentSensitive()) {
+            throw invalid(path, "it was written by a lexer of different sensitivity");
+        }
+        final int sourceLength = varint(in);
+
+        final var symbols = new SymbolTable();
+        final var ids = new int[count(in)];
+        for (int i = 0; i < ids.length; i++) {
+            final var lexeme = new byte[count(in)];
+            in.get(lexeme);
+            ids[i] = symbols.intern(new String(lexeme, StandardCharsets.UTF_8));
+        }
+
+        final int size = count(in);
+        // the elements are decoded from a heap copy, which is much faster than reading the mapped buffer byte by byte
+        final var elements = new Input(new byte[count(in)]);
+        in.get(elements.bytes);
+        final var kinds = new byte[size];
+        final var starts = new int[size];
+        final var ends = new int[size];
+        final var elementIds = new int[size];
+        int position = 0;
+        for (int i = 0; i < size; i++) {
+            final int kind = elements.varint();
+            if (kind >> 1 >= TYPES.length) {
+                throw invalid(path, "element " + i + " has an unknown type");
+            }
+            kinds[i] = (byte) (kind >> 1);
+            starts[i] = position += elements.varint();
+            ends[i] = position += elements.varint();
+            if (position > sourceLength) {
+                throw invalid(path, "element " + i + " does not fit into the source");
+            }
+            elementIds[i] = (kind & 1) == 0 ? SymbolTable.NO_ID : ids[elements.varint()];
+        }
+        if (elements.position != elements.bytes.length) {
+            throw invalid(path, "the elements are " + elements.position + " bytes instead of " + elements.bytes.length);
+        }
+        if (in.remaining() != sourceLength) {
+            throw invalid(path, "the length of the source is " + in.remaining() + " bytes instead of " + sourceLength);
+        }
+        final var source = (flags & ASCII_SOURCE) != 0 ? new AsciiCharSequence(in.slice()) : Utf8Source.content(in.slice());
+        if (size > 0 && ends[size - 1] > source.length()) {
+            throw invalid(path, "the elements do not fit into the source");
+        }
+        return new TokenStore(source, lexer, symbols, kinds, starts, ends, elementIds);
+    }
+
+    private static IOException invalid(Path path, String reason) {
+        return new IOException("The file '" + path + "' is not a valid token file, " + reason + ".");
+    }
+
+    /**
+     * Read the number of the following items, each of them taking at least one byte.
+     */
+    private static int count(ByteBuffer in) {
+        final int count = varint(in);
+        if (count > in.remaining()) {
+            throw new IllegalArgumentException("There are less than " + count + " bytes after byte " + in.position());
+        }
+        return count;
+    }
+
+    private static int varint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                if (value < 0) {
+                    break;
+                }
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Invalid varint before byte " + in.position());
+    }
+
+    /**
+     * The encoded elements copied from the file.
+     */
+    private static class Input {
+        private final byte[] bytes;
+        private int position = 0;
+
+        Input(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int varint() {
+            byte b = bytes[position++];
+            if (b >= 0) {
+                return b;
+            }
+            int value = b & 0x7F;
+            for (int shift = 7; shift < 32; shift += 7) {
+                b = bytes[position++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    if (value < 0) {
+                        break;
+                    }
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Invalid varint before byte " + position + " of the elements");
+        }
+    }
+
+    /**
+     * A growable byte array to encode the header, the string table and the elements.
+     */
+    private static class Output {
+        private byte[] buffer;
+        private int size = 0;
+
+        Output(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        void varint(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void bytes(byte[] bytes) {
+            bytes(bytes, bytes.length);
+        }
+
+        void bytes(byte[] bytes, int length) {
+            ensureCapacity(length);
+            System.arraycopy(bytes, 0, buffer, size, length);
+            size += length;
+        }
+
+        private void ensureCapacity(int n) {
+            if (size + n > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(size + n, 2 * buffer.length));
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package javax0.javalex.lex;
+
+/**
+ * Receives the lexical elements recognized by {@link Lexer#scan(CharSequence, TokenSink)}.
+ * <p>
+ * The elements are passed as the type and the range in the source, no object is created for them. A sink that needs
+ * the text of an element can read it from the source it passed to the lexer.
+ */
+@FunctionalInterface
+public interface TokenSink {
+
+    /**
+     * Called for each lexical element that is not ignored by the lexer, in the order of the elements in the source.
+     *
+     * @param kind  the type of the element
+     * @param start the position of the first character of the element in the source
+     * @param end   the position after the last character of the element in the source
+     */
+    void token(javax0.javalex.LexicalElement.Type kind, int start, int end);
+}
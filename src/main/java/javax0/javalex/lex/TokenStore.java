@@ -0,0 +1,634 @@
+package javax0.javalex.lex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A compact, modifiable list of lexical elements.
+ * <p>
+ * The elements recognized by the lexer are not stored as objects. The store keeps the kind, the start and the end
+ * offset of every element in parallel arrays, and the offsets point into the original source. The lexical element
+ * object is created only when it is first requested by {@link #get(int)}, analyzing the range of the source again.
+ * After that the same object is returned by the store, so that the changes made to the object are kept.
+ * <p>
+ * For identifiers and symbols the store also keeps the ID assigned by the {@link #symbols() symbol table} of the
+ * store, so that they can be compared without creating the object.
+ * <p>
+ * A store that was not modified can be updated after an edit of the source with {@link #edit(int, int, CharSequence)},
+ * which analyzes only the part of the source that is affected by the edit.
+ * <p>
+ * The elements inserted by {@link #add(int, javax0.javalex.LexicalElement)} are not part of the original source, they
+ * are stored as objects.
+ * <p>
+ * A store that was not modified can be saved with {@link #write(Path)} and loaded with {@link Lexer#load(Path)}
+ * without analyzing the source again.
+ * <p>
+ * A store that was not modified can also be copied outside the Java heap with {@link #offHeap()}. The off-heap store
+ * is read only. {@link #close() Closing} it drops the references to its direct buffers, the memory itself is freed by
+ * the garbage collector.
+ */
+public class TokenStore implements AutoCloseable {
+    private static final javax0.javalex.LexicalElement.Type[] TYPES = javax0.javalex.LexicalElement.Type.values();
+    private static final int INITIAL_CAPACITY = 16;
+
+    // the layout of an element in the columns of an off-heap store
+    private static final int START = 0;
+    private static final int END = 4;
+    private static final int ID = 8;
+    private static final int KIND = 12;
+    private static final int RECORD = 16;
+
+    private CharSequence source;
+    private final Lexer lexer;
+    private final SymbolTable symbols;
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] ends = new int[INITIAL_CAPACITY];
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private javax0.javalex.LexicalElement[] elements = new javax0.javalex.LexicalElement[INITIAL_CAPACITY];
+    private int size = 0;
+    private boolean modified = false;
+    private final boolean offHeap;
+    /**
+     * The elements of an off-heap store, {@code null} for a store on the heap and after an off-heap store was closed.
+     */
+    private ByteBuffer columns;
+
+    /**
+     * @param source  the source the offsets of the elements point into
+     * @param lexer   the lexer that recognized the elements, it is used to create the element objects
+     * @param symbols the table assigning the IDs of the identifiers and symbols
+     */
+    TokenStore(CharSequence source, Lexer lexer, SymbolTable symbols) {
+        this.source = source;
+        this.lexer = lexer;
+        this.symbols = symbols;
+        this.offHeap = false;
+    }
+
+    /**
+     * Create a store from the arrays read from a file by {@link TokenFile}.
+     */
+    TokenStore(CharSequence source, Lexer lexer, SymbolTable symbols, byte[] kinds, int[] starts, int[] ends, int[] ids) {
+        this.source = source;
+        this.lexer = lexer;
+        this.symbols = symbols;
+        this.kinds = kinds;
+        this.starts = starts;
+        this.ends = ends;
+        this.ids = ids;
+        this.elements = new javax0.javalex.LexicalElement[kinds.length];
+        this.size = kinds.length;
+        this.offHeap = false;
+    }
+
+    private TokenStore(CharSequence source, Lexer lexer, SymbolTable symbols, ByteBuffer columns, int size) {
+        this.source = source;
+        this.lexer = lexer;
+        this.symbols = symbols;
+        this.kinds = null;
+        this.starts = null;
+        this.ends = null;
+        this.ids = null;
+        this.elements = null;
+        this.columns = columns;
+        this.size = size;
+        this.offHeap = true;
+    }
+
+    /**
+     * Copy the elements and the source outside the Java heap.
+     * <p>
+     * The kind, the offsets and the {@link SymbolTable} ID of the elements are stored in a direct byte buffer, and so
+     * is the source, unless it is already outside the heap, like the source of a memory mapped file. That way a large
+     * number of stores, for example the stores of all the files of a repository, can be kept in the memory without
+     * making the garbage collection slower. Only the symbol table stays on the heap, it is shared with this store and
+     * it has one entry per distinct identifier and symbol.
+     * <p>
+     * The off-heap store is read only. It does not keep the lexical element objects, {@link #get(int)} creates a new
+     * object on every call. The store can be used through {@link javax0.javalex.JavaLexed#of(TokenStore)} to match
+     * lexical expressions.
+     * <p>
+     * The memory of the direct buffers is not released deterministically, there is no public API to free a direct
+     * buffer. It is freed by the garbage collector when the buffers are not referenced any more, that is, after the
+     * store was {@link #close() closed} or it is not referenced any more, and the element objects created from the
+     * store are not referenced any more. The direct memory of the JVM is limited by {@code -XX:MaxDirectMemorySize},
+     * and an allocation that exceeds the limit triggers a garbage collection before it fails.
+     *
+     * @return the new off-heap store, or this store if it is already an off-heap store
+     * @throws IllegalStateException if elements were inserted into or removed from this store, the lexeme of an element
+     *                               was changed, or this store is closed
+     */
+    public TokenStore offHeap() {
+        if (offHeap) {
+            columns();
+            return this;
+        }
+        if (isModified()) {
+            throw new IllegalStateException("The elements of the store were modified, they do not refer to the source and cannot be copied.");
+        }
+        if (size > Integer.MAX_VALUE / RECORD) {
+            throw new IllegalStateException("The store has " + size + " elements, it is too large to be copied off-heap.");
+        }
+        final var columns = ByteBuffer.allocateDirect(size * RECORD).order(ByteOrder.nativeOrder());
+        for (int i = 0; i < size; i++) {
+            final int at = i * RECORD;
+            columns.putInt(at + START, starts[i]);
+            columns.putInt(at + END, ends[i]);
+            columns.putInt(at + ID, ids[i]);
+            columns.put(at + KIND, kinds[i]);
+        }
+        return new TokenStore(offHeapSource(source), lexer, symbols, columns, size);
+    }
+
+    /**
+     * @return the source itself if it is outside the heap, otherwise a copy of it in a direct buffer, one byte per
+     * character if the source is ASCII
+     */
+    private static CharSequence offHeapSource(CharSequence source) {
+        if (source instanceof AsciiCharSequence && ((AsciiCharSequence) source).isDirect()) {
+            return source;
+        }
+        final int length = source.length();
+        int i = 0;
+        while (i < length && source.charAt(i) < 0x80) {
+            i++;
+        }
+        if (i == length) {
+            final var bytes = ByteBuffer.allocateDirect(length);
+            for (int j = 0; j < length; j++) {
+                bytes.put(j, (byte) source.charAt(j));
+            }
+            return new AsciiCharSequence(bytes);
+        }
+        final var chars = ByteBuffer.allocateDirect(2 * length).asCharBuffer();
+        chars.put(CharBuffer.wrap(source));
+        return chars.flip();
+    }
+
+    /**
+     * Drop the references of an off-heap store to its direct buffers, so that the garbage collector can free the memory.
+     * The memory is not freed by this method, it is freed when the garbage collector finds the buffers unreachable,
+     * see {@link #offHeap()}. After the store was closed, its methods throw {@link IllegalStateException}, except this
+     * method. Closing a store on the heap does nothing.
+     */
+    @Override
+    public void close() {
+        columns = null;
+        if (offHeap) {
+            source = null;
+        }
+    }
+
+    /**
+     * @return {@code true} if this store was created by {@link #offHeap()}
+     */
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * Write the elements and the source into a file in a compact binary format, see {@link Lexer#load(Path)}.
+     *
+     * @param path the file to write, it is overwritten if it exists
+     * @throws IOException           if the file cannot be written
+     * @throws IllegalStateException if elements were inserted into or removed from this store, or the lexeme of an
+     *                               element was changed
+     */
+    public void write(Path path) throws IOException {
+        TokenFile.write(this, path);
+    }
+
+    /**
+     * @return the source the store was created from
+     */
+    public CharSequence source() {
+        if (offHeap) {
+            columns();
+        }
+        return source;
+    }
+
+    /**
+     * @return the table assigning the IDs of the identifiers and symbols of this store
+     */
+    public SymbolTable symbols() {
+        return symbols;
+    }
+
+    /**
+     * @return the number of elements in the store
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the type of the i-th element without creating the element object.
+     *
+     * @param i the index of the element
+     * @return the type of the element
+     */
+    public javax0.javalex.LexicalElement.Type getType(int i) {
+        checkIndex(i);
+        return TYPES[kind(i)];
+    }
+
+    /**
+     * Get the ID of the i-th element in the {@link #symbols() symbol table} of the store without creating the element
+     * object. If the lexeme of the element object was modified, then the ID of the new lexeme is returned. The
+     * inserted identifiers and symbols get the ID of their lexeme, whatever class implements them.
+     *
+     * @param i the index of the element
+     * @return the ID of the element, or {@link SymbolTable#NO_ID} if it is not an identifier or symbol, or it has no
+     * lexeme
+     */
+    public int getId(int i) {
+        checkIndex(i);
+        if (offHeap) {
+            return columns().getInt(i * RECORD + ID);
+        }
+        final var element = elements[i];
+        if (element == null) {
+            return ids[i];
+        }
+        final var lexeme = element.getLexeme();
+        if (lexeme == null || !hasId(element.getType())) {
+            return SymbolTable.NO_ID;
+        }
+        // the lexeme of an unmodified element is the string of the symbol table, see get(int)
+        return ids[i] != SymbolTable.NO_ID && lexeme == symbols.lexeme(ids[i]) ? ids[i] : symbols.intern(lexeme);
+    }
+
+    /**
+     * Get the lexeme of the i-th element. The element object is not created for identifiers and symbols.
+     *
+     * @param i the index of the element
+     * @return the lexeme of the element
+     */
+    public String getLexeme(int i) {
+        final int id = getId(i);
+        return id == SymbolTable.NO_ID ? get(i).getLexeme() : symbols.lexeme(id);
+    }
+
+    /**
+     * Get the {@link Keyword} code of the i-th element without creating the element object.
+     *
+     * @param i the index of the element
+     * @return the code of the keyword if the element is an identifier that is a keyword or a contextual keyword,
+     * otherwise {@link Keyword#NO_KEYWORD}
+     */
+    public int getKeyword(int i) {
+        return getType(i) == javax0.javalex.LexicalElement.Type.IDENTIFIER ? Keyword.of(getId(i)) : Keyword.NO_KEYWORD;
+    }
+
+    /**
+     * Get the i-th element. The element object is created when it is requested the first time, or on every request
+     * if this is an off-heap store.
+     *
+     * @param i the index of the element
+     * @return the element
+     */
+    public javax0.javalex.LexicalElement get(int i) {
+        checkIndex(i);
+        if (offHeap) {
+            return share(lexer.eat(new LexInput(source, start(i), end(i))), getId(i));
+        }
+        if (elements[i] == null) {
+            elements[i] = share(lexer.eat(new LexInput(source, starts[i], ends[i])), ids[i]);
+        }
+        return elements[i];
+    }
+
+    /**
+     * Make the element use the lexeme string of the symbol table.
+     */
+    private javax0.javalex.LexicalElement share(javax0.javalex.LexicalElement element, int id) {
+        if (id != SymbolTable.NO_ID && element instanceof LexicalElement) {
+            ((LexicalElement) element).shareLexeme(symbols.lexeme(id));
+        }
+        return element;
+    }
+
+    /**
+     * Append the source code of the i-th element to the string builder.
+     * <p>
+     * If the element object was not created yet, then it was not modified and the original range of the source is
+     * appended. Otherwise, strings and characters are appended with their original, escaped form, and the other
+     * elements with their full lexeme.
+     *
+     * @param i  the index of the element
+     * @param sb the string builder to append to
+     */
+    public void appendSource(int i, StringBuilder sb) {
+        checkIndex(i);
+        if (offHeap) {
+            sb.append(source, start(i), end(i));
+            return;
+        }
+        final var element = elements[i];
+        if (element == null) {
+            sb.append(source, starts[i], ends[i]);
+        } else if (element.getType() == javax0.javalex.LexicalElement.Type.CHARACTER || element.getType() == javax0.javalex.LexicalElement.Type.STRING) {
+            sb.append(element.getOriginalLexeme());
+        } else {
+            sb.append(element.getFullLexeme());
+        }
+    }
+
+    /**
+     * Remove the i-th element.
+     *
+     * @param i the index of the element
+     * @return the removed element
+     */
+    public javax0.javalex.LexicalElement remove(int i) {
+        final var element = get(i);
+        removeRange(i, i + 1);
+        return element;
+    }
+
+    /**
+     * Remove the elements from {@code start} (inclusive) to {@code end} (exclusive).
+     *
+     * @param start the index of the first element to remove
+     * @param end   the index after the last element to remove
+     */
+    public void removeRange(int start, int end) {
+        assertOnHeap();
+        if (start < 0 || start > end || end > size) {
+            throw new IndexOutOfBoundsException("Invalid range " + start + ".." + end + ", size is " + size);
+        }
+        final int tail = size - end;
+        System.arraycopy(kinds, end, kinds, start, tail);
+        System.arraycopy(starts, end, starts, start, tail);
+        System.arraycopy(ends, end, ends, start, tail);
+        System.arraycopy(ids, end, ids, start, tail);
+        System.arraycopy(elements, end, elements, start, tail);
+        final int newSize = size - (end - start);
+        Arrays.fill(elements, newSize, size, null);
+        size = newSize;
+        modified = true;
+    }
+
+    /**
+     * Insert an element, which is not part of the original source.
+     *
+     * @param i       the index where the element is inserted
+     * @param element the element to insert
+     */
+    public void add(int i, javax0.javalex.LexicalElement element) {
+        assertOnHeap();
+        if (i < 0 || i > size) {
+            throw new IndexOutOfBoundsException("Index " + i + " is out of range, size is " + size);
+        }
+        ensureCapacity();
+        final int tail = size - i;
+        System.arraycopy(kinds, i, kinds, i + 1, tail);
+        System.arraycopy(starts, i, starts, i + 1, tail);
+        System.arraycopy(ends, i, ends, i + 1, tail);
+        System.arraycopy(ids, i, ids, i + 1, tail);
+        System.arraycopy(elements, i, elements, i + 1, tail);
+        set(i, element.getType(), -1, -1, SymbolTable.NO_ID);
+        elements[i] = element;
+        size++;
+        modified = true;
+    }
+
+    /**
+     * Create the store of the edited source re-analyzing only the part of the source affected by the edit.
+     * <p>
+     * The analysis restarts at the last element that starts before the edit. If that element is directly preceded by
+     * identifiers, numbers or symbols, then the analysis restarts at the first of them, because the lex eaters of these
+     * elements look ahead and the edit may change where they end. The analysis goes on until it reaches the start of
+     * an element that was after the edit in the old source. The rest of the elements are the same as in this store,
+     * only shifted. That way multi-line comments and text blocks opened or closed by the edit are analyzed until
+     * their new end.
+     * <p>
+     * The lexical element objects already created for the elements that are not re-analyzed are kept. The new source
+     * is a copy of this source with the edit applied. This store is not changed.
+     *
+     * @param offset        the position of the edit in the source
+     * @param removedLength the number of characters removed from the source at the offset
+     * @param inserted      the characters inserted into the source at the offset
+     * @return the new store for the edited source
+     * @throws IllegalStateException if elements were inserted into or removed from this store, or the lexeme of an
+     *                               element was changed
+     */
+    public TokenStore edit(int offset, int removedLength, CharSequence inserted) {
+        assertOnHeap();
+        if (offset < 0 || removedLength < 0 || offset + removedLength > source.length()) {
+            throw new IndexOutOfBoundsException("Invalid edit range " + offset + ".." + (offset + removedLength) + ", source length is " + source.length());
+        }
+        if (isModified()) {
+            throw new IllegalStateException("The elements of the store were modified, the store cannot be re-analyzed incrementally.");
+        }
+        final var newSource = new StringBuilder(source.length() - removedLength + inserted.length())
+            .append(source, 0, offset)
+            .append(inserted)
+            .append(source, offset + removedLength, source.length())
+            .toString();
+        final int delta = inserted.length() - removedLength;
+        final int editEnd = offset + inserted.length();
+
+        int restart = firstStartingAtOrAfter(offset) - 1;
+        while (restart > 0 && ends[restart - 1] == starts[restart] && looksAhead(kinds[restart - 1])) {
+            restart--;
+        }
+        final var store = new TokenStore(newSource, lexer, symbols);
+        final var in = new LexInput(newSource);
+        if (restart >= 0) {
+            store.copy(this, 0, restart, 0);
+            in.skip(starts[restart]);
+        }
+        int next = firstStartingAtOrAfter(offset + removedLength);
+        while (in.length() > 0) {
+            final int position = in.position();
+            if (position >= editEnd) {
+                while (next < size && starts[next] + delta < position) {
+                    next++;
+                }
+                if (next < size && starts[next] + delta == position) {
+                    store.copy(this, next, size, delta);
+                    return store;
+                }
+            }
+            final var element = lexer.eatSignificant(in);
+            if (element != null) {
+                store.append(element, position, in.position());
+            }
+        }
+        return store;
+    }
+
+    /**
+     * @param position a position in the source
+     * @return the index of the first element that starts at or after the position
+     */
+    private int firstStartingAtOrAfter(int position) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (starts[mid] < position) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @param kind the kind of an element
+     * @return {@code true} if the lex eater of the element may look at the characters after the element
+     */
+    private static boolean looksAhead(byte kind) {
+        final var type = TYPES[kind];
+        return type == javax0.javalex.LexicalElement.Type.IDENTIFIER || type == javax0.javalex.LexicalElement.Type.INTEGER
+            || type == javax0.javalex.LexicalElement.Type.FLOAT || type == javax0.javalex.LexicalElement.Type.SYMBOL;
+    }
+
+    /**
+     * Append the elements from {@code start} (inclusive) to {@code end} (exclusive) of the other store shifting their
+     * offsets by {@code delta}.
+     */
+    private void copy(TokenStore from, int start, int end, int delta) {
+        final int length = end - start;
+        if (size + length > kinds.length) {
+            final int capacity = Math.max(size + length, size + (size >> 1));
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            elements = Arrays.copyOf(elements, capacity);
+        }
+        System.arraycopy(from.kinds, start, kinds, size, length);
+        System.arraycopy(from.starts, start, starts, size, length);
+        System.arraycopy(from.ends, start, ends, size, length);
+        System.arraycopy(from.ids, start, ids, size, length);
+        System.arraycopy(from.elements, start, elements, size, length);
+        if (delta != 0) {
+            for (int i = size; i < size + length; i++) {
+                starts[i] += delta;
+                ends[i] += delta;
+            }
+        }
+        size += length;
+    }
+
+    /**
+     * Append an element recognized in the source without keeping the element object.
+     *
+     * @param element the element
+     * @param start   the start offset of the element in the source
+     * @param end     the end offset of the element in the source
+     */
+    void append(LexicalElement element, int start, int end) {
+        ensureCapacity();
+        final var type = element.getType();
+        set(size++, type, start, end, hasId(type) ? symbols.intern(element.getLexeme()) : SymbolTable.NO_ID);
+    }
+
+    private static boolean hasId(javax0.javalex.LexicalElement.Type type) {
+        return type == javax0.javalex.LexicalElement.Type.IDENTIFIER || type == javax0.javalex.LexicalElement.Type.SYMBOL;
+    }
+
+    private void set(int i, javax0.javalex.LexicalElement.Type type, int start, int end, int id) {
+        kinds[i] = (byte) type.ordinal();
+        starts[i] = start;
+        ends[i] = end;
+        ids[i] = id;
+    }
+
+    private void ensureCapacity() {
+        if (size == kinds.length) {
+            final int capacity = size + (size >> 1);
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            elements = Arrays.copyOf(elements, capacity);
+        }
+    }
+
+    /**
+     * The store is modified if elements were inserted or removed, or the lexeme of an element object created by the
+     * store differs from the element analyzed from its range of the source. The elements are compared by their full
+     * and original lexeme, thus a string changed by {@link javax0.javalex.LexicalElement#setLexeme(String)} is
+     * modified, even if its original form is still the same.
+     *
+     * @return {@code true} if the elements of the store are not in sync with the source
+     */
+    boolean isModified() {
+        if (modified) {
+            return true;
+        }
+        if (offHeap) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            final var element = elements[i];
+            if (element != null) {
+                final var analyzed = lexer.eat(new LexInput(source, starts[i], ends[i]));
+                if (!Objects.equals(element.getFullLexeme(), analyzed.getFullLexeme())
+                    || !Objects.equals(element.getOriginalLexeme(), analyzed.getOriginalLexeme())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    Lexer lexer() {
+        return lexer;
+    }
+
+    /**
+     * @return the ID of the i-th element as it was recognized in the source, regardless of the modifications of the
+     * element object
+     */
+    int sourceId(int i) {
+        return offHeap ? columns().getInt(i * RECORD + ID) : ids[i];
+    }
+
+    int start(int i) {
+        return offHeap ? columns().getInt(i * RECORD + START) : starts[i];
+    }
+
+    int end(int i) {
+        return offHeap ? columns().getInt(i * RECORD + END) : ends[i];
+    }
+
+    private byte kind(int i) {
+        return offHeap ? columns().get(i * RECORD + KIND) : kinds[i];
+    }
+
+    private ByteBuffer columns() {
+        final var columns = this.columns;
+        if (columns == null) {
+            throw new IllegalStateException("The off-heap token store was closed.");
+        }
+        return columns;
+    }
+
+    private void assertOnHeap() {
+        if (offHeap) {
+            throw new UnsupportedOperationException("An off-heap token store cannot be modified.");
+        }
+    }
+
+    private void checkIndex(int i) {
+        if (offHeap) {
+            columns();
+        }
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " is out of range, size is " + size);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package javax0.javalex.lex;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Utility class to lex UTF-8 encoded sources held in byte arrays or byte buffers without creating a {@code String} of
+ * the whole source.
+ * <p>
+ * A leading byte order mark is skipped. When the bytes are all ASCII, which is the usual case for Java sources, the
+ * returned sequence is a view of the bytes and every character is read directly from the buffer. The lexemes are
+ * created from the byte ranges only when they are needed, for example when an element of a {@link TokenStore} is
+ * requested. Otherwise, the bytes are decoded into a character array. ASCII bytes are copied as they are and only the
+ * multibyte sequences are decoded, using a table indexed by the lead byte to get the length of the sequence.
+ */
+public class Utf8Source {
+    private static final int BOM_LENGTH = 3;
+
+    /**
+     * The length of the UTF-8 sequence indexed by the unsigned value of its first byte. Zero marks the bytes that
+     * cannot start a sequence: continuation bytes, the lead bytes of overlong encodings and the bytes beyond the
+     * Unicode range.
+     */
+    private static final byte[] SEQUENCE_LENGTH = new byte[256];
+
+    static {
+        for (int b = 0x00; b < 0x80; b++) {
+            SEQUENCE_LENGTH[b] = 1;
+        }
+        for (int b = 0xC2; b < 0xE0; b++) {
+            SEQUENCE_LENGTH[b] = 2;
+        }
+        for (int b = 0xE0; b < 0xF0; b++) {
+            SEQUENCE_LENGTH[b] = 3;
+        }
+        for (int b = 0xF0; b < 0xF5; b++) {
+            SEQUENCE_LENGTH[b] = 4;
+        }
+    }
+
+    private Utf8Source() {
+    }
+
+    /**
+     * Get the source in the byte array as a character sequence. See {@link #of(ByteBuffer)}.
+     *
+     * @param bytes the UTF-8 encoded source, which must not be modified while the returned sequence is used
+     * @return the source as a character sequence
+     * @throws IllegalArgumentException if the bytes are not valid UTF-8
+     */
+    public static CharSequence of(byte[] bytes) {
+        return of(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Get the source in the buffer from its position to its limit as a character sequence. The position of the buffer
+     * is not changed.
+     *
+     * @param bytes the UTF-8 encoded source, which must not be modified while the returned sequence is used
+     * @return the source as a character sequence, a view of the buffer if the source is ASCII
+     * @throws IllegalArgumentException if the bytes are not valid UTF-8
+     */
+    public static CharSequence of(ByteBuffer bytes) {
+        var buffer = bytes.slice();
+        if (hasBom(buffer)) {
+            buffer.position(BOM_LENGTH);
+            buffer = buffer.slice();
+        }
+        return content(buffer);
+    }
+
+    /**
+     * @param buffer the UTF-8 encoded characters from the position to the limit, a byte order mark is not skipped
+     * @return the characters, a view of the buffer if it is ASCII
+     * @throws IllegalArgumentException if the bytes are not valid UTF-8
+     */
+    static CharSequence content(ByteBuffer buffer) {
+        if (AsciiCharSequence.isAscii(buffer)) {
+            return new AsciiCharSequence(buffer);
+        }
+        return decode(buffer);
+    }
+
+    /**
+     * @param buffer the buffer, its position is not changed
+     * @return {@code true} if the buffer starts with the UTF-8 encoded byte order mark at its position
+     */
+    static boolean hasBom(ByteBuffer buffer) {
+        final int i = buffer.position();
+        return buffer.limit() - i >= BOM_LENGTH
+            && buffer.get(i) == (byte) 0xEF && buffer.get(i + 1) == (byte) 0xBB && buffer.get(i + 2) == (byte) 0xBF;
+    }
+
+    private static CharSequence decode(ByteBuffer buffer) {
+        final int limit = buffer.limit();
+        final var chars = new char[limit];
+        int n = 0;
+        int i = 0;
+        while (i < limit) {
+            final int b = buffer.get(i) & 0xFF;
+            final int length = SEQUENCE_LENGTH[b];
+            if (length == 1) {
+                chars[n++] = (char) b;
+                i++;
+                continue;
+            }
+            if (length == 0 || i + length > limit) {
+                throw invalid(i);
+            }
+            final int b1 = continuation(buffer, i + 1, i);
+            if (length == 2) {
+                chars[n++] = (char) (((b & 0x1F) << 6) | b1);
+            } else if (length == 3) {
+                final int codePoint = ((b & 0x0F) << 12) | (b1 << 6) | continuation(buffer, i + 2, i);
+                if (codePoint < 0x800 || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+                    throw invalid(i);
+                }
+                chars[n++] = (char) codePoint;
+            } else {
+                final int codePoint = ((b & 0x07) << 18) | (b1 << 12) | (continuation(buffer, i + 2, i) << 6) | continuation(buffer, i + 3, i);
+                if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT || codePoint > Character.MAX_CODE_POINT) {
+                    throw invalid(i);
+                }
+                chars[n++] = Character.highSurrogate(codePoint);
+                chars[n++] = Character.lowSurrogate(codePoint);
+            }
+            i += length;
+        }
+        return new CharArraySequence(chars, n);
+    }
+
+    /**
+     * @param buffer the buffer
+     * @param i      the index of the continuation byte
+     * @param start  the index of the first byte of the sequence, for the error message
+     * @return the six payload bits of the continuation byte
+     */
+    private static int continuation(ByteBuffer buffer, int i, int start) {
+        final int b = buffer.get(i) & 0xFF;
+        if ((b & 0xC0) != 0x80) {
+            throw invalid(start);
+        }
+        return b & 0x3F;
+    }
+
+    private static IllegalArgumentException invalid(int i) {
+        return new IllegalArgumentException("Invalid UTF-8 sequence at byte " + i);
+    }
+}
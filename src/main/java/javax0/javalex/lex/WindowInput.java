@@ -0,0 +1,71 @@
+package javax0.javalex.lex;
+
+/**
+ * A lex input over a window of a longer source, where the characters after the window are not known yet.
+ * <p>
+ * The input records the highest position the lex eaters looked at. When a lex eater looked at the last character of
+ * the window, or it tried to look beyond the window, then the lexical element it returned may be different when more
+ * characters are available. For example {@code >>} at the end of the window may be the start of {@code >>>=}. Some
+ * lex eaters also decide only checking the number of the remaining characters, like the multi-line comment eater that
+ * needs at least two characters for the closing {@code *}{@code /}. Therefore, an input that was consumed closer to
+ * the end than the longest such lookahead also counts. In these cases {@link #reachedEnd()} returns {@code true} and
+ * the caller has to repeat the analysis of the element after the window was extended.
+ */
+class WindowInput extends LexInput {
+    /**
+     * The longest lookahead that the built-in lex eaters check only by the length of the input, which is the length of
+     * the multi-line string delimiter.
+     */
+    private static final int LOOKAHEAD = 3;
+    private int touched = -1;
+
+    WindowInput(CharSequence source, int start, int end) {
+        super(source, start, end);
+    }
+
+    @Override
+    public char charAt(int index) {
+        final char ch = super.charAt(index);
+        if (position() + index > touched) {
+            touched = position() + index;
+        }
+        return ch;
+    }
+
+    @Override
+    public boolean startsWith(String s) {
+        final int last = s.length() > length() ? end() : position() + s.length() - 1;
+        if (last > touched) {
+            touched = last;
+        }
+        return super.startsWith(s);
+    }
+
+    @Override
+    public int indexOf(String s, int from) {
+        final int i = super.indexOf(s, from);
+        touch(i < 0 ? end() - 1 : position() + i + s.length() - 1);
+        return i;
+    }
+
+    @Override
+    public int indexOf(char ch, int from, int to) {
+        final int i = super.indexOf(ch, from, to);
+        touch(i < 0 ? position() + to - 1 : position() + i);
+        return i;
+    }
+
+    private void touch(int last) {
+        if (last > touched) {
+            touched = last;
+        }
+    }
+
+    /**
+     * @return {@code true} if the lex eaters looked at the last character of the window or beyond, or the input was
+     * consumed close to the end of the window
+     */
+    boolean reachedEnd() {
+        return touched >= end() - 1 || length() < LOOKAHEAD;
+    }
+}
@@ -1,11 +1,12 @@
 package javax0.javalex.lex.eaters;
 
 import javax0.javalex.lex.LexEater;
+import javax0.javalex.lex.LexInput;
 import javax0.javalex.lex.LexicalElement;
 
-import static javax0.javalex.lex.eaters.utils.Escape.createOutput;
-import static javax0.javalex.lex.eaters.utils.Escape.handleEscape;
-import static javax0.javalex.lex.eaters.utils.Escape.handleNormalCharacter;
+import static javax0.javalex.lex.eaters.utils.Escape.checkLength;
+import static javax0.javalex.lex.eaters.utils.Escape.skipEscape;
+import static javax0.javalex.lex.eaters.utils.Escape.skipNormalCharacter;
 
 /**
  * A character literal eating lexer as defined in the Java Language
@@ -16,26 +17,41 @@ public class CharacterLiteral implements LexEater {
     private static final char ENCLOSING = '\'';
 
     @Override
-    public LexicalElement.CharacterLiteral apply(StringBuilder sb) {
-        if (sb.length() == 0 || sb.charAt(0) != ENCLOSING) {
+    public boolean mayStartWith(char ch) {
+        return ch == ENCLOSING;
+    }
+
+    @Override
+    public LexicalElement.CharacterLiteral apply(LexInput in) {
+        final int start = in.position();
+        if (scan(in) == null) {
+            return null;
+        }
+        return LexicalElement.CharacterLiteral.fromOriginal(in.source().subSequence(start + 1, in.position() - 1).toString());
+    }
+
+    /**
+     * Consume the character literal. The escape sequences are checked, but they are not decoded.
+     */
+    @Override
+    public LexicalElement.Type scan(LexInput in) {
+        if (in.length() == 0 || in.charAt(0) != ENCLOSING) {
             return null;
         }
-        final StringBuilder output = createOutput(sb, CHARACTER);
-        final StringBuilder original = createOutput(sb, CHARACTER);
-        sb.deleteCharAt(0);
-        while (sb.length() > 0 && sb.charAt(0) != ENCLOSING) {
-            final char ch = sb.charAt(0);
-            if (ch == '\\') {
-                handleEscape(sb, output,original);
+        checkLength(in, CHARACTER);
+        in.skip(1);
+        while (in.length() > 0 && in.charAt(0) != ENCLOSING) {
+            if (in.charAt(0) == '\\') {
+                skipEscape(in);
             } else {
-                handleNormalCharacter(sb, output,original);
+                skipNormalCharacter(in);
             }
         }
-        if (sb.length() == 0) {
+        if (in.length() == 0) {
             throw new IllegalArgumentException("Character is not terminated before eol");
         }
-        sb.deleteCharAt(0);
-        return new LexicalElement.CharacterLiteral(output.toString(),original.toString());
+        in.skip(1);
+        return LexicalElement.Type.CHARACTER;
     }
 
-}
\ No newline at end of file
+}
@@ -2,48 +2,57 @@ package javax0.javalex.lex.eaters;
 
 
 import javax0.javalex.lex.LexEater;
+import javax0.javalex.lex.LexInput;
 import javax0.javalex.lex.LexicalElement;
 
 /**
  * Comment eating lexer. In case it could recognize a comment and could
- * remove it from the start of the input the it will return a lexical
+ * consume it from the start of the input the it will return a lexical
  * element containing the comment.
  */
 public class CommentLiteral implements LexEater {
 
     @Override
-    public LexicalElement apply(StringBuilder sb) {
-        if (sb.length() < 2 || sb.charAt(0) != '/' || (sb.charAt(1) != '/' && sb.charAt(1) != '*')) {
+    public boolean mayStartWith(char ch) {
+        return ch == '/';
+    }
+
+    @Override
+    public LexicalElement.Type type() {
+        return LexicalElement.Type.COMMENT;
+    }
+
+    @Override
+    public LexicalElement apply(LexInput in) {
+        final int start = in.position();
+        return scan(in) == null ? null : new LexicalElement.Comment(in.lexeme(start));
+    }
+
+    @Override
+    public LexicalElement.Type scan(LexInput in) {
+        if (in.length() < 2 || in.charAt(0) != '/' || (in.charAt(1) != '/' && in.charAt(1) != '*')) {
             return null;
         }
-        if (sb.charAt(1) == '/') {
-            return singleLineComment(sb);
+        if (in.charAt(1) == '/') {
+            singleLineComment(in);
+        } else {
+            multiLineComment(in);
         }
-        return multiLineComment(sb);
+        return LexicalElement.Type.COMMENT;
     }
 
-    private LexicalElement multiLineComment(final StringBuilder sb) {
-        final var output = new StringBuilder("/*");
-        sb.delete(0, 2);
-        while (sb.length() >= 2 && (sb.charAt(0) != '*' || sb.charAt(1) != '/')) {
-            output.append(sb.charAt(0));
-            sb.deleteCharAt(0);
-        }
-        if (sb.length() >= 2) {
-            sb.delete(0, 2);
-            output.append("*/");
-            return new LexicalElement.Comment(output.toString());
+    private void multiLineComment(final LexInput in) {
+        final int end = in.indexOf("*/", 2);
+        if (end < 0) {
+            throw new RuntimeException("Comment is not terminated till end of file");
         }
-        throw new RuntimeException("Comment is not terminated till end of file");
+        in.skip(end + 2);
     }
 
-    private LexicalElement singleLineComment(final StringBuilder sb) {
-        final var output = new StringBuilder("//");
-        sb.delete(0, 2);
-        while (sb.length() > 0 && sb.charAt(0) != '\n' && sb.charAt(0) != '\r') {
-            output.append(sb.charAt(0));
-            sb.deleteCharAt(0);
+    private void singleLineComment(final LexInput in) {
+        in.skip(2);
+        while (in.length() > 0 && in.charAt(0) != '\n' && in.charAt(0) != '\r') {
+            in.skip(1);
         }
-        return new LexicalElement.Comment(output.toString());
     }
 }
@@ -1,22 +1,67 @@
 package javax0.javalex.lex.eaters;
 
+import javax0.javalex.lex.Keyword;
 import javax0.javalex.lex.LexEater;
+import javax0.javalex.lex.LexInput;
 import javax0.javalex.lex.LexicalElement;
+import javax0.javalex.lex.eaters.utils.CharClass;
 
 /**
  * Fetch an identifier from the input and return the identifier as a lexical element.
+ * <p>
+ * Keywords are recognized by the perfect hash of the {@link Keyword} table while the characters are still in the input,
+ * and the element of a keyword gets the keyword code as its ID without creating a string and looking it up in the
+ * symbol table.
  */
 public class IdentifierLiteral implements LexEater {
     @Override
-    public LexicalElement.Identifier apply(StringBuilder sb) {
-        if (sb.length() == 0 || !Character.isJavaIdentifierStart(sb.charAt(0))) {
+    public boolean mayStartWith(char ch) {
+        return CharClass.mayStartIdentifier(ch);
+    }
+
+    @Override
+    public LexicalElement.Identifier apply(LexInput in) {
+        final int length = length(in);
+        if (length == 0) {
             return null;
         }
-        final var output = new StringBuilder();
-        while (sb.length() > 0 && Character.isJavaIdentifierPart(sb.charAt(0))) {
-            output.append(sb.charAt(0));
-            sb.deleteCharAt(0);
+        final int keyword = Keyword.code(in, 0, length);
+        if (keyword != Keyword.NO_KEYWORD) {
+            in.skip(length);
+            return new LexicalElement.Identifier(keyword);
+        }
+        final int start = in.position();
+        in.skip(length);
+        return new LexicalElement.Identifier(in.lexeme(start));
+    }
+
+    @Override
+    public LexicalElement.Type scan(LexInput in) {
+        final int length = length(in);
+        if (length == 0) {
+            return null;
+        }
+        in.skip(length);
+        return LexicalElement.Type.IDENTIFIER;
+    }
+
+    /**
+     * @param in the input
+     * @return the number of characters of the identifier at the start of the input, zero if there is no identifier
+     */
+    private static int length(LexInput in) {
+        if (in.length() == 0) {
+            return 0;
+        }
+        int i = CharClass.identifierStart(in, 0);
+        if (i == 0) {
+            return 0;
+        }
+        final int length = in.length();
+        int n;
+        while (i < length && (n = CharClass.identifierPart(in, i)) > 0) {
+            i += n;
         }
-        return new LexicalElement.Identifier(output.toString());
+        return i;
     }
 }
@@ -1,53 +1,190 @@
 package javax0.javalex.lex.eaters;
 
 import javax0.javalex.lex.LexEater;
+import javax0.javalex.lex.LexInput;
 import javax0.javalex.lex.LexicalElement;
 
-import java.util.regex.Pattern;
-
 /**
  * Number consuming lexical analyser. It will recognize a number at the
  * start of the input and return either an integer or a float lexical
  * element.
+ * <p>
+ * The recognized forms are the following, all with an optional leading
+ * {@code +} or {@code -} sign:
+ *
+ * <ol>
+ *     <li>decimal or binary integer: {@code (0[Bb])?\d[\d_]*[lL]?}</li>
+ *     <li>hexadecimal integer: {@code 0[Xx][\da-fA-F][\d_a-fA-F]*[lL]?}</li>
+ *     <li>decimal float: {@code \d+(\.\d*)?([eE][+-]?\d+)?[fFdD]?}</li>
+ *     <li>hexadecimal float: {@code 0[Xx][\da-fA-F]*(\.[\da-fA-F]*)?[pP][+-]?\d+[fFdD]?}</li>
+ * </ol>
+ * <p>
+ * The input is scanned in a single forward pass without creating any
+ * intermediate object. The longest of the forms wins. When an integer
+ * and a float form have the same length then the integer form is
+ * returned.
  */
 public class NumberLiteral implements LexEater {
 
-    private static final Pattern[] patterns = new Pattern[]{
-        Pattern.compile("^([+-]?(?:0[Bb])?\\d[\\d_]*[lL]?)")
-        ,
-        Pattern.compile("^([+-]?0[Xx][\\da-fA-F][\\d_a-fA-F]*[lL]?)")
-        ,
-        Pattern.compile("^([+-]?\\d+(?:\\.\\d*)?(?:[eE][+-]?\\d+)?[fFdD]?)")
-        ,
-        Pattern.compile("^([+-]?0[Xx][\\da-fA-F]*(?:\\.[\\da-fA-F]*)?[pP][+-]?\\d+[fFdD]?)")
-        ,
-    };
+    @Override
+    public boolean mayStartWith(char ch) {
+        return isDigit(ch) || ch == '+' || ch == '-';
+    }
 
     @Override
-    public LexicalElement apply(StringBuilder sb) {
-        final var literals = new String[patterns.length];
-        for (int i = 0; i < patterns.length; i++) {
-            final var matcher = patterns[i].matcher(sb.toString());
-            if (matcher.find()) {
-                literals[i] = matcher.group(1);
-            } else {
-                literals[i] = "";
-            }
+    public LexicalElement apply(LexInput in) {
+        final int start = in.position();
+        final var type = scan(in);
+        if (type == null) {
+            return null;
         }
+        final String lexeme = in.lexeme(start);
+        return type == LexicalElement.Type.FLOAT ? new LexicalElement.FloatLiteral(lexeme)
+            : new LexicalElement.IntegerLiteral(lexeme);
+    }
 
-        int maxLength = literals[0].length();
-        int index = 0;
-        for (int i = 1; i < patterns.length; i++) {
-            if (maxLength < literals[i].length()) {
-                index = i;
-                maxLength = literals[i].length();
-            }
-        }
-        if (maxLength == 0) {
+    @Override
+    public LexicalElement.Type scan(LexInput in) {
+        final int start = signLength(in);
+        if (start >= in.length() || !isDigit(in.charAt(start))) {
             return null;
         }
-        sb.delete(0, maxLength);
-        return index > 1 ? new LexicalElement.FloatLiteral(literals[index])
-                : new LexicalElement.IntegerLiteral(literals[index]);
+        final int integerLength;
+        final int floatLength;
+        if (in.charAt(start) == '0' && start + 1 < in.length() && (in.charAt(start + 1) == 'x' || in.charAt(start + 1) == 'X')) {
+            integerLength = Math.max(start + 1, hexIntegerLength(in, start + 2));
+            floatLength = Math.max(start + 1, hexFloatLength(in, start + 2));
+        } else {
+            integerLength = integerLength(in, start);
+            floatLength = floatLength(in, start);
+        }
+        in.skip(Math.max(integerLength, floatLength));
+        return floatLength > integerLength ? LexicalElement.Type.FLOAT : LexicalElement.Type.INTEGER;
+    }
+
+    private static int signLength(LexInput in) {
+        return in.length() > 0 && (in.charAt(0) == '+' || in.charAt(0) == '-') ? 1 : 0;
+    }
+
+    /**
+     * @param in the input
+     * @param i  the index of the first digit
+     * @return the length of the decimal or binary integer, which is at
+     * least {@code i + 1}, since there is a digit at {@code i}
+     */
+    private static int integerLength(LexInput in, int i) {
+        if (in.charAt(i) == '0' && i + 2 < in.length() && (in.charAt(i + 1) == 'b' || in.charAt(i + 1) == 'B') && isDigit(in.charAt(i + 2))) {
+            i += 3;
+        } else {
+            i++;
+        }
+        while (i < in.length() && (isDigit(in.charAt(i)) || in.charAt(i) == '_')) {
+            i++;
+        }
+        return longSuffix(in, i);
+    }
+
+    /**
+     * @param in the input
+     * @param i  the index of the first digit
+     * @return the length of the decimal float, which is at least {@code
+     * i + 1}, since there is a digit at {@code i}
+     */
+    private static int floatLength(LexInput in, int i) {
+        i = digits(in, i);
+        if (i < in.length() && in.charAt(i) == '.') {
+            i = digits(in, i + 1);
+        }
+        if (i < in.length() && (in.charAt(i) == 'e' || in.charAt(i) == 'E')) {
+            i = exponent(in, i + 1, i);
+        }
+        return floatSuffix(in, i);
+    }
+
+    /**
+     * @param in the input
+     * @param i  the index after the {@code 0x} prefix
+     * @return the length of the hexadecimal integer or zero if there is
+     * no hexadecimal digit following the prefix
+     */
+    private static int hexIntegerLength(LexInput in, int i) {
+        if (i >= in.length() || !isHexDigit(in.charAt(i))) {
+            return 0;
+        }
+        i++;
+        while (i < in.length() && (isHexDigit(in.charAt(i)) || in.charAt(i) == '_')) {
+            i++;
+        }
+        return longSuffix(in, i);
+    }
+
+    /**
+     * @param in the input
+     * @param i  the index after the {@code 0x} prefix
+     * @return the length of the hexadecimal float or zero if the input
+     * is not a hexadecimal float
+     */
+    private static int hexFloatLength(LexInput in, int i) {
+        i = hexDigits(in, i);
+        if (i < in.length() && in.charAt(i) == '.') {
+            i = hexDigits(in, i + 1);
+        }
+        if (i >= in.length() || (in.charAt(i) != 'p' && in.charAt(i) != 'P')) {
+            return 0;
+        }
+        final int end = exponent(in, i + 1, 0);
+        return end == 0 ? 0 : floatSuffix(in, end);
+    }
+
+    /**
+     * @param in       the input
+     * @param i        the index after the exponent character
+     * @param fallback the value to return if there is no valid exponent
+     * @return the index after the exponent digits or {@code fallback}
+     */
+    private static int exponent(LexInput in, int i, int fallback) {
+        if (i < in.length() && (in.charAt(i) == '+' || in.charAt(i) == '-')) {
+            i++;
+        }
+        if (i >= in.length() || !isDigit(in.charAt(i))) {
+            return fallback;
+        }
+        return digits(in, i);
+    }
+
+    private static int digits(LexInput in, int i) {
+        while (i < in.length() && isDigit(in.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int hexDigits(LexInput in, int i) {
+        while (i < in.length() && isHexDigit(in.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int longSuffix(LexInput in, int i) {
+        return i < in.length() && (in.charAt(i) == 'l' || in.charAt(i) == 'L') ? i + 1 : i;
+    }
+
+    private static int floatSuffix(LexInput in, int i) {
+        if (i < in.length()) {
+            final char ch = in.charAt(i);
+            if (ch == 'f' || ch == 'F' || ch == 'd' || ch == 'D') {
+                return i + 1;
+            }
+        }
+        return i;
+    }
+
+    private static boolean isDigit(char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
+    private static boolean isHexDigit(char ch) {
+        return (ch >= '0' && ch <= '9') || (ch >= 'a' && ch <= 'f') || (ch >= 'A' && ch <= 'F');
     }
 }
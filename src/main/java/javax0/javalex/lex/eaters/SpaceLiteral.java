@@ -1,23 +1,46 @@
 package javax0.javalex.lex.eaters;
 
 import javax0.javalex.lex.LexEater;
+import javax0.javalex.lex.LexInput;
 import javax0.javalex.lex.LexicalElement;
+import javax0.javalex.lex.eaters.utils.CharClass;
 
 /**
- * Space eating lexer. If there are some spaces it removed from the
- * input it will return {@code * LexicalElement.IGNORED}.
+ * Space eating lexer. If there are some spaces it consumes them from the
+ * input and returns a {@code LexicalElement.Spacing} element.
  */
 public class SpaceLiteral implements LexEater {
     @Override
-    public LexicalElement apply(StringBuilder sb) {
-        if (sb.length() == 0 || !Character.isWhitespace(sb.charAt(0))) {
+    public boolean mayStartWith(char ch) {
+        return CharClass.mayStartWhitespace(ch);
+    }
+
+    @Override
+    public LexicalElement.Type type() {
+        return LexicalElement.Type.SPACING;
+    }
+
+    @Override
+    public LexicalElement apply(LexInput in) {
+        final int start = in.position();
+        return scan(in) == null ? null : new LexicalElement.Spacing(in.lexeme(start));
+    }
+
+    @Override
+    public LexicalElement.Type scan(LexInput in) {
+        if (in.length() == 0) {
             return null;
         }
-        final var lexeme = new StringBuilder();
-        while (sb.length() > 0 && Character.isWhitespace(sb.charAt(0))) {
-            lexeme.append(sb.charAt(0));
-            sb.deleteCharAt(0);
+        final int length = in.length();
+        int i = 0;
+        int n;
+        while (i < length && (n = CharClass.whitespace(in, i)) > 0) {
+            i += n;
+        }
+        if (i == 0) {
+            return null;
         }
-        return new LexicalElement.Spacing(lexeme.toString());
+        in.skip(i);
+        return LexicalElement.Type.SPACING;
     }
 }
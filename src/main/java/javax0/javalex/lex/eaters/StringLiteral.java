@@ -1,12 +1,12 @@
 package javax0.javalex.lex.eaters;
 
 import javax0.javalex.lex.LexEater;
+import javax0.javalex.lex.LexInput;
 import javax0.javalex.lex.LexicalElement;
 
-import static javax0.javalex.lex.eaters.utils.Escape.createOutput;
-import static javax0.javalex.lex.eaters.utils.Escape.handleEscape;
-import static javax0.javalex.lex.eaters.utils.Escape.handleNormalCharacter;
-import static javax0.javalex.lex.eaters.utils.Escape.handleNormalMultiLineStringCharacter;
+import static javax0.javalex.lex.eaters.utils.Escape.checkLength;
+import static javax0.javalex.lex.eaters.utils.Escape.skipEscape;
+import static javax0.javalex.lex.eaters.utils.Escape.skipNormalCharacter;
 
 /**
  * String literal eating lexer as per defined in the Java Language
@@ -24,56 +24,87 @@ public class StringLiteral implements LexEater {
     private static final String STRING = "String";
 
     @Override
-    public LexicalElement.StringLiteral apply(StringBuilder sb) {
-        if (sb.length() == 0 || sb.charAt(0) != ENCLOSING_CH) {
+    public boolean mayStartWith(char ch) {
+        return ch == ENCLOSING_CH;
+    }
+
+    /**
+     * Consume the string literal. The literal keeps the original characters and decodes them when the lexeme is first
+     * requested.
+     */
+    @Override
+    public LexicalElement.StringLiteral apply(LexInput in) {
+        final int start = in.position();
+        if (scan(in) == null) {
             return null;
         }
-        final var output = createOutput(sb, STRING);
-        final var original = createOutput(sb, STRING);
-        if (sb.length() >= 3 && sb.subSequence(0, 3).equals(MULTI_LINE_STRING_DELIMITER)) {
-            return getMultiLineStringLiteral(sb, output,original);
+        final int end = in.position();
+        // an empty simple string is two characters long, a longer literal starting with two quotes is multi-line
+        final var delimiter = end - start > 2 && in.source().charAt(start + 1) == ENCLOSING_CH ? MULTI_LINE_STRING_DELIMITER : ENCLOSING;
+        final var original = in.source().subSequence(start + delimiter.length(), end - delimiter.length()).toString();
+        return LexicalElement.StringLiteral.fromOriginal(original, delimiter);
+    }
+
+    /**
+     * Consume the string literal. The escape sequences are checked, but they are not decoded.
+     */
+    @Override
+    public LexicalElement.Type scan(LexInput in) {
+        if (in.length() == 0 || in.charAt(0) != ENCLOSING_CH) {
+            return null;
+        }
+        checkLength(in, STRING);
+        if (in.startsWith(MULTI_LINE_STRING_DELIMITER)) {
+            skipMultiLineStringLiteral(in);
         } else {
-            return getSimpleStringLiteral(sb, output,original);
+            skipSimpleStringLiteral(in);
         }
+        return LexicalElement.Type.STRING;
     }
 
-    private LexicalElement.StringLiteral getMultiLineStringLiteral(StringBuilder sb, StringBuilder output, StringBuilder original) {
-        deleteMultiLineStringDelimiter(sb);
-        while (sb.length() >= 3 && !sb.subSequence(0, 3).equals(MULTI_LINE_STRING_DELIMITER)) {
-            final char ch = sb.charAt(0);
-            if (ch == '\\') {
-                handleEscape(sb, output, original);
-            } else {
-                handleNormalMultiLineStringCharacter(sb, output, original);
+    /**
+     * Skip the multi-line string jumping to the next closing delimiter and checking only the escape sequences before
+     * it. An escape sequence may escape a quote of the delimiter, in which case the delimiter is searched again after
+     * the escape sequence.
+     */
+    private void skipMultiLineStringLiteral(LexInput in) {
+        skipMultiLineStringDelimiter(in);
+        int delimiter = -1;
+        while (true) {
+            if (delimiter < in.position()) {
+                final int i = in.indexOf(MULTI_LINE_STRING_DELIMITER, 0);
+                if (i < 0) {
+                    throw new IllegalArgumentException("Multi-line string is not terminated before eof");
+                }
+                delimiter = in.position() + i;
             }
+            final int escape = in.indexOf('\\', 0, delimiter - in.position());
+            if (escape < 0) {
+                in.skip(delimiter - in.position());
+                break;
+            }
+            in.skip(escape);
+            skipEscape(in);
         }
-        if (sb.length() < 3) {
-            throw new IllegalArgumentException("Multi-line string is not terminated before eof");
-        }
-        deleteMultiLineStringDelimiter(sb);
-        return new LexicalElement.StringLiteral(output.toString(), original.toString(),MULTI_LINE_STRING_DELIMITER);
+        skipMultiLineStringDelimiter(in);
     }
 
-    private void deleteMultiLineStringDelimiter(StringBuilder sb) {
-        sb.deleteCharAt(0);
-        sb.deleteCharAt(0);
-        sb.deleteCharAt(0);
+    private void skipMultiLineStringDelimiter(LexInput in) {
+        in.skip(MULTI_LINE_STRING_DELIMITER.length());
     }
 
-    private LexicalElement.StringLiteral getSimpleStringLiteral(StringBuilder sb, StringBuilder output, StringBuilder original) {
-        sb.deleteCharAt(0);
-        while (sb.length() > 0 && sb.charAt(0) != ENCLOSING_CH) {
-            final char ch = sb.charAt(0);
-            if (ch == '\\') {
-                handleEscape(sb, output, original);
+    private void skipSimpleStringLiteral(LexInput in) {
+        in.skip(1);
+        while (in.length() > 0 && in.charAt(0) != ENCLOSING_CH) {
+            if (in.charAt(0) == '\\') {
+                skipEscape(in);
             } else {
-                handleNormalCharacter(sb, output,original);
+                skipNormalCharacter(in);
             }
         }
-        if (sb.length() == 0) {
+        if (in.length() == 0) {
             throw new IllegalArgumentException("String is not terminated before eol");
         }
-        sb.deleteCharAt(0);
-        return new LexicalElement.StringLiteral(output.toString(), original.toString(), ENCLOSING);
+        in.skip(1);
     }
-}
\ No newline at end of file
+}
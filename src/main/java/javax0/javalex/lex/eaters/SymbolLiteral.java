@@ -1,8 +1,20 @@
 package javax0.javalex.lex.eaters;
 
 import javax0.javalex.lex.LexEater;
+import javax0.javalex.lex.LexInput;
 import javax0.javalex.lex.LexicalElement;
 
+import java.util.Arrays;
+
+/**
+ * Symbol eating lexer. It recognizes the longest operator at the start
+ * of the input, or a single character symbol if there is no operator.
+ * <p>
+ * The operators are stored in a trie built when the class is loaded.
+ * Every node of the trie holds the lexeme string of its operator, thus
+ * recognizing an operator or an ASCII symbol character allocates only
+ * the new, modifiable {@link LexicalElement.Symbol} object.
+ */
 public class SymbolLiteral implements LexEater {
 
     private static final String[] symbols = {
@@ -33,20 +45,100 @@ public class SymbolLiteral implements LexEater {
             "%=",
     };
 
-    @Override
-    public LexicalElement apply(StringBuilder sb) {
-        for( final var s : symbols ){
-            if( sb.length() >= s.length() && sb.subSequence(0,s.length()).equals(s)){
-                sb.delete(0,s.length());
-                return new LexicalElement.Symbol(s);
+    private static final int ASCII = 128;
+
+    /**
+     * One node of the operator trie. The {@code lexeme} is {@code null}
+     * if the characters leading to the node are only a prefix of an
+     * operator but not an operator themselves, like {@code ..}.
+     */
+    private static class Node {
+        private String lexeme;
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+
+        private Node child(char ch) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == ch) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private Node addChild(char ch) {
+            var node = child(ch);
+            if (node == null) {
+                node = new Node();
+                keys = Arrays.copyOf(keys, keys.length + 1);
+                children = Arrays.copyOf(children, children.length + 1);
+                keys[keys.length - 1] = ch;
+                children[children.length - 1] = node;
+            }
+            return node;
+        }
+    }
+
+    /**
+     * The first level of the trie indexed by the ASCII character.
+     */
+    private static final Node[] root = new Node[ASCII];
+
+    static {
+        for (char ch = 0; ch < ASCII; ch++) {
+            root[ch] = new Node();
+            root[ch].lexeme = String.valueOf(ch);
+        }
+        for (final var s : symbols) {
+            var node = root[s.charAt(0)];
+            for (int i = 1; i < s.length(); i++) {
+                node = node.addChild(s.charAt(i));
             }
+            node.lexeme = s;
         }
-        if( sb.length() > 0 ) {
-            var s = sb.substring(0, 1);
-            sb.delete(0, 1);
-            return new LexicalElement.Symbol(s);
-        }else{
+    }
+
+    /**
+     * @param in the input starting with an ASCII character
+     * @return the lexeme of the longest operator at the start of the
+     * input, or the first character if no operator starts there
+     */
+    private static String longest(LexInput in) {
+        var node = root[in.charAt(0)];
+        var lexeme = node.lexeme;
+        for (int i = 1; i < in.length(); i++) {
+            node = node.child(in.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node.lexeme != null) {
+                lexeme = node.lexeme;
+            }
+        }
+        return lexeme;
+    }
+
+    @Override
+    public LexicalElement apply(LexInput in) {
+        if (in.length() == 0) {
+            return null;
+        }
+        final char first = in.charAt(0);
+        if (first >= ASCII) {
+            in.skip(1);
+            return new LexicalElement.Symbol(String.valueOf(first));
+        }
+        final var lexeme = longest(in);
+        in.skip(lexeme.length());
+        return new LexicalElement.Symbol(lexeme);
+    }
+
+    @Override
+    public LexicalElement.Type scan(LexInput in) {
+        if (in.length() == 0) {
             return null;
         }
+        in.skip(in.charAt(0) >= ASCII ? 1 : longest(in).length());
+        return LexicalElement.Type.SYMBOL;
     }
 }
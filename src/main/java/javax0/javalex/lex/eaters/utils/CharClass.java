@@ -0,0 +1,113 @@
+package javax0.javalex.lex.eaters.utils;
+
+/**
+ * Utility class with static methods to classify the characters of identifiers and spaces.
+ * <p>
+ * The ASCII characters are classified using a precomputed table. The other characters are classified by their Unicode
+ * code point, thus a supplementary character encoded as a surrogate pair is classified as one character. The methods
+ * return the number of {@code char}s the classified code point occupies in the input, or zero if the code point does
+ * not belong to the class. The classification is the same as the one of {@link Character#isJavaIdentifierStart(int)},
+ * {@link Character#isJavaIdentifierPart(int)} and {@link Character#isWhitespace(int)}.
+ */
+public class CharClass {
+    private static final int ASCII = 128;
+    private static final byte IDENTIFIER_START = 0x01;
+    private static final byte IDENTIFIER_PART = 0x02;
+    private static final byte WHITESPACE = 0x04;
+
+    private static final byte[] CLASSES = new byte[ASCII];
+
+    static {
+        for (char ch = 0; ch < ASCII; ch++) {
+            CLASSES[ch] = (byte) ((Character.isJavaIdentifierStart(ch) ? IDENTIFIER_START : 0)
+                | (Character.isJavaIdentifierPart(ch) ? IDENTIFIER_PART : 0)
+                | (Character.isWhitespace(ch) ? WHITESPACE : 0));
+        }
+    }
+
+    private CharClass() {
+    }
+
+    /**
+     * @param ch a character
+     * @return {@code true} if the character can start an identifier. A high surrogate is also accepted, because it
+     * may be the start of a supplementary character that starts an identifier
+     */
+    public static boolean mayStartIdentifier(char ch) {
+        if (ch < ASCII) {
+            return (CLASSES[ch] & IDENTIFIER_START) != 0;
+        }
+        return Character.isHighSurrogate(ch) || Character.isJavaIdentifierStart(ch);
+    }
+
+    /**
+     * @param ch a character
+     * @return {@code true} if the character can start a whitespace
+     */
+    public static boolean mayStartWhitespace(char ch) {
+        if (ch < ASCII) {
+            return (CLASSES[ch] & WHITESPACE) != 0;
+        }
+        return Character.isHighSurrogate(ch) || Character.isWhitespace(ch);
+    }
+
+    /**
+     * @param in the characters
+     * @param i  the index of the character to check
+     * @return the number of characters of the code point at {@code i} if it can start an identifier, otherwise zero
+     */
+    public static int identifierStart(CharSequence in, int i) {
+        final char ch = in.charAt(i);
+        if (ch < ASCII) {
+            return (CLASSES[ch] & IDENTIFIER_START) != 0 ? 1 : 0;
+        }
+        final int codePoint = codePointAt(in, i, ch);
+        return Character.isJavaIdentifierStart(codePoint) ? Character.charCount(codePoint) : 0;
+    }
+
+    /**
+     * @param in the characters
+     * @param i  the index of the character to check
+     * @return the number of characters of the code point at {@code i} if it can be part of an identifier, otherwise
+     * zero
+     */
+    public static int identifierPart(CharSequence in, int i) {
+        final char ch = in.charAt(i);
+        if (ch < ASCII) {
+            return (CLASSES[ch] & IDENTIFIER_PART) != 0 ? 1 : 0;
+        }
+        final int codePoint = codePointAt(in, i, ch);
+        return Character.isJavaIdentifierPart(codePoint) ? Character.charCount(codePoint) : 0;
+    }
+
+    /**
+     * @param in the characters
+     * @param i  the index of the character to check
+     * @return the number of characters of the code point at {@code i} if it is a whitespace, otherwise zero
+     */
+    public static int whitespace(CharSequence in, int i) {
+        final char ch = in.charAt(i);
+        if (ch < ASCII) {
+            return (CLASSES[ch] & WHITESPACE) != 0 ? 1 : 0;
+        }
+        final int codePoint = codePointAt(in, i, ch);
+        return Character.isWhitespace(codePoint) ? Character.charCount(codePoint) : 0;
+    }
+
+    /**
+     * @param in the characters
+     * @param i  the index of the character
+     * @param ch the character at {@code i}
+     * @return the code point of the surrogate pair at {@code i}, or the character itself if it is not the start of a
+     * surrogate pair
+     */
+    private static int codePointAt(CharSequence in, int i, char ch) {
+        if (Character.isHighSurrogate(ch) && i + 1 < in.length()) {
+            final char low = in.charAt(i + 1);
+            if (Character.isLowSurrogate(low)) {
+                return Character.toCodePoint(ch, low);
+            }
+        }
+        return ch;
+    }
+}
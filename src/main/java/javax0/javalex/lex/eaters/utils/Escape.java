@@ -1,81 +1,181 @@
 package javax0.javalex.lex.eaters.utils;
 
+import javax0.javalex.lex.LexInput;
+
 /**
  * Utility class with static methods to handle escape sequences in strings and characters.
  */
 public class Escape {
-    static char octal(StringBuilder sb, int maxLen, StringBuilder original) {
+    static char octal(LexInput in, int maxLen, StringBuilder original) {
         int i = maxLen;
         int occ = 0;
-        while (i > 0 && sb.length() > 0 && sb.charAt(0) >= '0' && sb.charAt(0) <= '7') {
-            occ = 8 * occ + sb.charAt(0) - '0';
-            original.append(sb.charAt(0));
-            sb.deleteCharAt(0);
+        while (i > 0 && in.length() > 0 && in.charAt(0) >= '0' && in.charAt(0) <= '7') {
+            occ = 8 * occ + in.charAt(0) - '0';
+            if (original != null) {
+                original.append(in.charAt(0));
+            }
+            in.skip(1);
             i--;
         }
         return (char) occ;
     }
 
+    /**
+     * The output of {@link #escape(String)} and {@link #escapeMultiLine(String)}, reused on each thread. A builder that
+     * grew larger than {@link #MAX_SCRATCH_CAPACITY} is not kept.
+     */
+    private static final ThreadLocal<StringBuilder> SCRATCH = ThreadLocal.withInitial(StringBuilder::new);
+    private static final int MAX_SCRATCH_CAPACITY = 1 << 12;
+
     private static final String escapes = "btnfr\"'\\";
     private static final String escaped = "\b\t\n\f\r\"'\\";
 
     public static String escape(String original) {
-        final var sb = new StringBuilder(original);
-        final var output = new StringBuilder();
-        final var ignored = new StringBuilder();
-        while (sb.length() > 0) {
-            final char ch = sb.charAt(0);
+        if (original.indexOf('\\') == -1) {
+            return original;
+        }
+        final var in = new LexInput(original);
+        final var output = scratch();
+        while (in.length() > 0) {
+            final char ch = in.charAt(0);
             if (ch == '\\') {
-                handleEscape(sb, output, ignored);
+                handleEscape(in, output, null);
             } else {
                 output.append(ch);
-                sb.deleteCharAt(0);
+                in.skip(1);
+            }
+        }
+        return output.toString();
+    }
+
+    /**
+     * Decode the escape sequences of a text block and normalize the new lines the same way as {@link
+     * #handleNormalMultiLineStringCharacter(LexInput, StringBuilder, StringBuilder)} does.
+     *
+     * @param original the characters between the opening and closing delimiters of the text block
+     * @return the decoded string
+     */
+    public static String escapeMultiLine(String original) {
+        if (original.indexOf('\\') == -1 && original.indexOf('\r') == -1) {
+            return original;
+        }
+        final var in = new LexInput(original);
+        final var output = scratch();
+        while (in.length() > 0) {
+            if (in.charAt(0) == '\\') {
+                handleEscape(in, output, null);
+            } else {
+                handleNormalMultiLineStringCharacter(in, output, null);
             }
         }
         return output.toString();
     }
 
-    public static void handleEscape(StringBuilder sb, StringBuilder output, StringBuilder original) {
-        original.append(sb.charAt(0));
-        sb.deleteCharAt(0);
-        if (sb.length() == 0) {
+    private static StringBuilder scratch() {
+        final var scratch = SCRATCH.get();
+        if (scratch.capacity() > MAX_SCRATCH_CAPACITY) {
+            final var fresh = new StringBuilder();
+            SCRATCH.set(fresh);
+            return fresh;
+        }
+        scratch.setLength(0);
+        return scratch;
+    }
+
+    /**
+     * Consume an escape sequence without decoding it. Only the backslash and the next character are consumed. The
+     * further digits of an octal escape are normal characters when the literal is only scanned.
+     *
+     * @param in the input starting with the backslash
+     */
+    public static void skipEscape(LexInput in) {
+        in.skip(1);
+        if (in.length() == 0) {
+            throw new IllegalArgumentException("Source ended inside a string.");
+        }
+        final var nextCh = in.charAt(0);
+        if (escapes.indexOf(nextCh) == -1 && (nextCh < '0' || nextCh > '7')) {
+            throw new IllegalArgumentException("Invalid escape sequence in string: \\" + nextCh);
+        }
+        in.skip(1);
+    }
+
+    /**
+     * Consume a character of a string or character literal without decoding it.
+     *
+     * @param in the input starting with the character, which is not a backslash
+     */
+    public static void skipNormalCharacter(LexInput in) {
+        final char ch = in.charAt(0);
+        if (ch == '\n' || ch == '\r') {
+            throw new RuntimeException("String not terminated before eol:\n" + in.subSequence(1, Math.min(in.length(), 60)) + "...");
+        }
+        in.skip(1);
+    }
+
+    /**
+     * Decode an escape sequence.
+     *
+     * @param in       the input starting with the backslash
+     * @param output   where the decoded character is appended to
+     * @param original where the characters of the escape sequence are appended to, or {@code null} if they are not
+     *                 needed
+     */
+    public static void handleEscape(LexInput in, StringBuilder output, StringBuilder original) {
+        if (original != null) {
+            original.append(in.charAt(0));
+        }
+        in.skip(1);
+        if (in.length() == 0) {
             throw new IllegalArgumentException("Source ended inside a string.");
         }
-        final var nextCh = sb.charAt(0);
+        final var nextCh = in.charAt(0);
         final int esindex = escapes.indexOf(nextCh);
         if (esindex == -1) {
             if (nextCh >= '0' && nextCh <= '3') {
-                output.append(octal(sb, 3, original));
+                output.append(octal(in, 3, original));
             } else if (nextCh >= '4' && nextCh <= '7') {
-                output.append(octal(sb, 2, original));
+                output.append(octal(in, 2, original));
             } else {
                 throw new IllegalArgumentException("Invalid escape sequence in string: \\" + nextCh);
             }
         } else {
-            original.append(nextCh);
+            if (original != null) {
+                original.append(nextCh);
+            }
             output.append(escaped.charAt(esindex));
-            sb.deleteCharAt(0);
+            in.skip(1);
         }
     }
 
-    public static void handleNormalCharacter(StringBuilder sb, StringBuilder output, StringBuilder original) {
-        final char ch = sb.charAt(0);
+    public static void handleNormalCharacter(LexInput in, StringBuilder output, StringBuilder original) {
+        final char ch = in.charAt(0);
         if (ch == '\n' || ch == '\r') {
-            throw new RuntimeException("String not terminated before eol:\n" + sb.substring(1, Math.min(sb.length(), 60)) + "...");
+            throw new RuntimeException("String not terminated before eol:\n" + in.subSequence(1, Math.min(in.length(), 60)) + "...");
         }
         output.append(ch);
         original.append(ch);
-        sb.deleteCharAt(0);
+        in.skip(1);
     }
 
-    public static void handleNormalMultiLineStringCharacter(StringBuilder sb, StringBuilder output, StringBuilder original) {
-        char ch = sb.charAt(0);
+    /**
+     * Consume a character of a text block, normalizing the new lines, see {@link #normalizedNewLines(LexInput,
+     * StringBuilder, StringBuilder)}.
+     *
+     * @param in       the input starting with the character, which is not a backslash
+     * @param output   where the character or the normalized new lines are appended to
+     * @param original where the consumed characters are appended to, or {@code null} if they are not needed
+     */
+    public static void handleNormalMultiLineStringCharacter(LexInput in, StringBuilder output, StringBuilder original) {
+        char ch = in.charAt(0);
         if (ch == '\n' || ch == '\r') {
-            normalizedNewLines(sb, output, original);
+            normalizedNewLines(in, output, original);
         } else {
             output.append(ch);
-            original.append(ch);
-            sb.deleteCharAt(0);
+            if (original != null) {
+                original.append(ch);
+            }
+            in.skip(1);
         }
     }
 
@@ -85,25 +185,27 @@ public class Escape {
      * The only exception is, when there are no {@code \n} characters along with some {@code \r}. In this case there
      * will be one {@code \n} in the output.</p>
      *
-     * <p>The method deletes the characters from the start of the input StringBuilder {@code sb} and append the output
+     * <p>The method consumes the characters from the start of the input {@code in} and append the output
      * to the {@code output}. The original characters will be appended to the end of {@code original} without any
      * conversion.</p>
      *
-     * @param sb       the string builder input, from which the characters are consumed.
+     * @param in       the input, from which the characters are consumed.
      * @param output   where the converted newlines are appended to
-     * @param original where the original characters removed from {@code sb} are appended
+     * @param original where the original characters consumed from {@code in} are appended, or {@code null}
      */
-    private static void normalizedNewLines(StringBuilder sb, StringBuilder output, StringBuilder original) {
-        char ch = sb.charAt(0);
+    private static void normalizedNewLines(LexInput in, StringBuilder output, StringBuilder original) {
+        char ch = in.charAt(0);
         int countNewLines = 0;
-        while (sb.length() > 0 && (ch == '\n' || ch == '\r')) {
+        while (in.length() > 0 && (ch == '\n' || ch == '\r')) {
             if (ch == '\n') {
                 countNewLines++;
             }
-            sb.deleteCharAt(0);
-            original.append(ch);
-            if (sb.length() > 0) {
-                ch = sb.charAt(0);
+            in.skip(1);
+            if (original != null) {
+                original.append(ch);
+            }
+            if (in.length() > 0) {
+                ch = in.charAt(0);
             }
         }
         // if there was a single, or multiple \r without any \n
@@ -113,10 +215,14 @@ public class Escape {
         output.append("\n".repeat(countNewLines));
     }
 
-    public static StringBuilder createOutput(StringBuilder sb, String string) {
-        if (sb.length() < 2) {
+    public static StringBuilder createOutput(LexInput in, String string) {
+        checkLength(in, string);
+        return new StringBuilder();
+    }
+
+    public static void checkLength(LexInput in, String string) {
+        if (in.length() < 2) {
             throw new IllegalArgumentException(string + " has to be at least two characters long.");
         }
-        return new StringBuilder();
     }
 }
@@ -0,0 +1,152 @@
+package javax0.javalex.lex.eaters.utils;
+
+/**
+ * Utility class with static methods to calculate the value of integer and float literals.
+ * <p>
+ * The integer literals are decoded character by character without creating intermediate strings. Underscores
+ * between the digits are ignored. The prefixes {@code 0x}, {@code 0b} and a leading {@code 0} select hexadecimal,
+ * binary and octal radix. These literals are unsigned 64-bit values, the same way as the Java compiler treats them,
+ * e.g. {@code 0xFFFFFFFFFFFFFFFFL} is {@code -1}. Decimal literals are signed 64-bit values.
+ */
+public class NumberValue {
+
+    private NumberValue() {
+    }
+
+    /**
+     * @param lexeme the integer literal with an optional sign and an optional {@code l} or {@code L} suffix
+     * @return the value of the literal
+     * @throws NumberFormatException if the lexeme is not a valid integer literal or the value does not fit into 64
+     *                               bits
+     */
+    public static long integer(CharSequence lexeme) {
+        int end = lexeme.length();
+        if (end > 0 && (lexeme.charAt(end - 1) == 'l' || lexeme.charAt(end - 1) == 'L')) {
+            end--;
+        }
+        int i = 0;
+        boolean negative = false;
+        if (i < end && (lexeme.charAt(i) == '+' || lexeme.charAt(i) == '-')) {
+            negative = lexeme.charAt(i) == '-';
+            i++;
+        }
+        if (i >= end) {
+            throw invalid(lexeme);
+        }
+        if (lexeme.charAt(i) == '0' && i + 1 < end) {
+            final char prefix = lexeme.charAt(i + 1);
+            final long magnitude;
+            if (prefix == 'x' || prefix == 'X') {
+                magnitude = unsigned(lexeme, i + 2, end, 4);
+            } else if (prefix == 'b' || prefix == 'B') {
+                magnitude = unsigned(lexeme, i + 2, end, 1);
+            } else {
+                magnitude = unsigned(lexeme, i + 1, end, 3);
+            }
+            return negative ? -magnitude : magnitude;
+        }
+        return decimal(lexeme, i, end, negative);
+    }
+
+    /**
+     * @param lexeme the float literal with an optional sign and an optional type suffix
+     * @return the value of the literal
+     * @throws NumberFormatException if the lexeme is not a valid float literal
+     */
+    public static double floating(String lexeme) {
+        if (lexeme.indexOf('_') == -1) {
+            return Double.parseDouble(lexeme);
+        }
+        final var sb = new StringBuilder(lexeme.length());
+        for (int i = 0; i < lexeme.length(); i++) {
+            if (lexeme.charAt(i) != '_') {
+                sb.append(lexeme.charAt(i));
+            }
+        }
+        return Double.parseDouble(sb.toString());
+    }
+
+    /**
+     * Decode the digits of a radix that is a power of two.
+     *
+     * @param lexeme the literal
+     * @param i      the index of the first digit
+     * @param end    the index after the last digit
+     * @param bits   the number of bits a digit represents
+     * @return the value as an unsigned 64-bit number
+     */
+    private static long unsigned(CharSequence lexeme, int i, int end, int bits) {
+        final int radix = 1 << bits;
+        long value = 0;
+        boolean hasDigit = false;
+        for (; i < end; i++) {
+            final char ch = lexeme.charAt(i);
+            if (ch == '_') {
+                continue;
+            }
+            final int digit = digit(ch);
+            if (digit < 0 || digit >= radix) {
+                throw invalid(lexeme);
+            }
+            if (value >>> (Long.SIZE - bits) != 0) {
+                throw tooLarge(lexeme);
+            }
+            value = (value << bits) | digit;
+            hasDigit = true;
+        }
+        if (!hasDigit) {
+            throw invalid(lexeme);
+        }
+        return value;
+    }
+
+    /**
+     * Decode decimal digits. The value is accumulated as a negative number, so that {@link Long#MIN_VALUE} can also
+     * be represented.
+     */
+    private static long decimal(CharSequence lexeme, int i, int end, boolean negative) {
+        final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        final long multiplyLimit = limit / 10;
+        long value = 0;
+        for (; i < end; i++) {
+            final char ch = lexeme.charAt(i);
+            if (ch == '_') {
+                continue;
+            }
+            if (ch < '0' || ch > '9') {
+                throw invalid(lexeme);
+            }
+            final int digit = ch - '0';
+            if (value < multiplyLimit) {
+                throw tooLarge(lexeme);
+            }
+            value *= 10;
+            if (value < limit + digit) {
+                throw tooLarge(lexeme);
+            }
+            value -= digit;
+        }
+        return negative ? value : -value;
+    }
+
+    private static int digit(char ch) {
+        if (ch >= '0' && ch <= '9') {
+            return ch - '0';
+        }
+        if (ch >= 'a' && ch <= 'f') {
+            return ch - 'a' + 10;
+        }
+        if (ch >= 'A' && ch <= 'F') {
+            return ch - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static NumberFormatException invalid(CharSequence lexeme) {
+        return new NumberFormatException("Invalid integer literal '" + lexeme + "'");
+    }
+
+    private static NumberFormatException tooLarge(CharSequence lexeme) {
+        return new NumberFormatException("Integer literal '" + lexeme + "' does not fit into 64 bits");
+    }
+}
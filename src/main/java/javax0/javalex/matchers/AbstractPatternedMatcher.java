@@ -43,7 +43,7 @@ abstract class AbstractPatternedMatcher extends LexMatcher {
             return MatchResult.NO_MATCH;
         }
         int start = skipSpacesAndComments(i);
-        if (javaLexed.get(start).getType() != type) {
+        if (javaLexed.getType(start) != type) {
             return MatchResult.NO_MATCH;
         }
         if (text != null) {
@@ -23,11 +23,11 @@ public class FloatMatcher extends LexMatcher {
             return MatchResult.NO_MATCH;
         }
         int start = skipSpacesAndComments(i);
-        if (javaLexed.get(start).getType() != javax0.javalex.LexicalElement.Type.FLOAT) {
+        if (javaLexed.getType(start) != javax0.javalex.LexicalElement.Type.FLOAT) {
             return MatchResult.NO_MATCH;
         }
         if (predicate != null) {
-            if (predicate.test(((LexicalElement.FloatLiteral) javaLexed.get(start)).value)) {
+            if (predicate.test(((LexicalElement.FloatLiteral) javaLexed.get(start)).getValue())) {
                 return matching( start, start + 1);
             } else {
                 return MatchResult.NO_MATCH;
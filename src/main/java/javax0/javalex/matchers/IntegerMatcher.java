@@ -23,11 +23,11 @@ public class IntegerMatcher extends LexMatcher {
             return MatchResult.NO_MATCH;
         }
         int start = skipSpacesAndComments(i);
-        if (javaLexed.get(start).getType() != javax0.javalex.LexicalElement.Type.INTEGER) {
+        if (javaLexed.getType(start) != javax0.javalex.LexicalElement.Type.INTEGER) {
             return MatchResult.NO_MATCH;
         }
         if (predicate != null) {
-            if (predicate.test(((LexicalElement.IntegerLiteral) javaLexed.get(start)).value)) {
+            if (predicate.test(((LexicalElement.IntegerLiteral) javaLexed.get(start)).getValue())) {
                 return matching( start, start + 1);
             } else {
                 return MatchResult.NO_MATCH;
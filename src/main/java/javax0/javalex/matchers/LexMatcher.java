@@ -18,13 +18,9 @@ public abstract class LexMatcher implements javax0.javalex.LexMatcher {
     }
 
     public static Lexpression when(JavaLexed javaLexed, int sensitivity) {
-        final var lexer = new Lexer();
-        if ((sensitivity & Lexpression.SPACE_SENSITIVE) > 0) {
-            lexer.spaceSensitive();
-        }
-        if ((sensitivity & Lexpression.COMMENT_SENSITIVE) > 0) {
-            lexer.commentSensitive();
-        }
+        final var lexer = Lexer.shared(
+                (sensitivity & Lexpression.SPACE_SENSITIVE) > 0,
+                (sensitivity & Lexpression.COMMENT_SENSITIVE) > 0);
         return new Lexpression(javaLexed, lexer);
     }
 
@@ -89,8 +85,8 @@ public abstract class LexMatcher implements javax0.javalex.LexMatcher {
         int j = i;
         if (!expression.isSpaceSensitive() || !expression.isCommentSensitive()) {
             while (j < javaLexed.size() &&
-                ((!expression.isSpaceSensitive() && javaLexed.get(j).getType() == javax0.javalex.LexicalElement.Type.SPACING)
-                    || (!expression.isCommentSensitive() && javaLexed.get(j).getType() == javax0.javalex.LexicalElement.Type.COMMENT))
+                ((!expression.isSpaceSensitive() && javaLexed.getType(j) == javax0.javalex.LexicalElement.Type.SPACING)
+                    || (!expression.isCommentSensitive() && javaLexed.getType(j) == javax0.javalex.LexicalElement.Type.COMMENT))
             ) {
                 j++;
             }
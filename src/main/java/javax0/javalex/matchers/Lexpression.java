@@ -1,5 +1,6 @@
 package javax0.javalex.matchers;
 
+import javax0.javalex.lex.Keyword;
 import javax0.javalex.lex.Lexer;
 import javax0.javalex.lex.LexicalElement;
 import javax0.javalex.JavaLexed;
@@ -141,13 +142,19 @@ public class Lexpression {
     }
 
     /**
-     * Create a matcher that matches a keyword.
+     * Create a matcher that matches a keyword. Keywords and contextual
+     * keywords (see {@link Keyword}) are matched comparing the keyword
+     * code of the elements. Other strings are matched as identifiers.
      *
      * @param id the string representation of the keyword
      * @return the new matcher
      */
     public LexMatcher keyword(String id) {
-        return identifier(id);
+        final int code = Keyword.code(id);
+        if (code == Keyword.NO_KEYWORD) {
+            return identifier(id);
+        }
+        return terminal(new LexicalElement.Identifier(code));
     }
 
     /**
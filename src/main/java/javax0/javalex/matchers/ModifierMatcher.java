@@ -3,31 +3,34 @@ package javax0.javalex.matchers;
 import javax0.javalex.LexicalElement;
 import javax0.javalex.JavaLexed;
 import javax0.javalex.MatchResult;
+import javax0.javalex.lex.Keyword;
 
 import java.lang.reflect.Modifier;
-import java.util.HashMap;
-import java.util.Map;
 
 public class ModifierMatcher extends LexMatcher {
 
-    private static final Map<String, Integer> modifierMap = new HashMap<>();
+    /**
+     * The modifier bits indexed by the keyword code of the modifier.
+     */
+    private static final int[] modifierBits = new int[Keyword.COUNT];
+    /**
+     * "strict" is not a keyword, it is matched by its lexeme.
+     */
+    private static final String STRICT = "strict";
     private final int modifiers;
 
     static {
-        modifierMap.putAll(Map.of(
-            "public", Modifier.PUBLIC,
-            "private", Modifier.PRIVATE,
-            "protected", Modifier.PROTECTED,
-            "static", Modifier.STATIC,
-            "final", Modifier.FINAL,
-            "synchronized", Modifier.SYNCHRONIZED));
-        modifierMap.putAll(Map.of(
-            "volatile", Modifier.VOLATILE,
-            "transient", Modifier.TRANSIENT,
-            "native", Modifier.NATIVE,
-            "interface", Modifier.INTERFACE,
-            "abstract", Modifier.ABSTRACT,
-            "strict", Modifier.STRICT));
+        modifierBits[Keyword.code("public")] = Modifier.PUBLIC;
+        modifierBits[Keyword.code("private")] = Modifier.PRIVATE;
+        modifierBits[Keyword.code("protected")] = Modifier.PROTECTED;
+        modifierBits[Keyword.code("static")] = Modifier.STATIC;
+        modifierBits[Keyword.code("final")] = Modifier.FINAL;
+        modifierBits[Keyword.code("synchronized")] = Modifier.SYNCHRONIZED;
+        modifierBits[Keyword.code("volatile")] = Modifier.VOLATILE;
+        modifierBits[Keyword.code("transient")] = Modifier.TRANSIENT;
+        modifierBits[Keyword.code("native")] = Modifier.NATIVE;
+        modifierBits[Keyword.code("interface")] = Modifier.INTERFACE;
+        modifierBits[Keyword.code("abstract")] = Modifier.ABSTRACT;
     }
 
 
@@ -43,10 +46,14 @@ public class ModifierMatcher extends LexMatcher {
 
     @Override
     public MatchResult matchesAt(int i) {
-        final var lex = javaLexed.get(i);
-        if (lex.getType() == LexicalElement.Type.IDENTIFIER &&
-            modifierMap.containsKey(lex.getLexeme()) &&
-            (modifierMap.get(lex.getLexeme()) & modifiers) > 0) {
+        final int keyword = javaLexed.getKeyword(i);
+        final int bits;
+        if (keyword != Keyword.NO_KEYWORD) {
+            bits = modifierBits[keyword];
+        } else {
+            bits = javaLexed.getType(i) == LexicalElement.Type.IDENTIFIER && STRICT.equals(javaLexed.getLexeme(i)) ? Modifier.STRICT : 0;
+        }
+        if ((bits & modifiers) > 0) {
             return new MatchResult(true, i, i + 1);
         } else {
             return MatchResult.NO_MATCH;
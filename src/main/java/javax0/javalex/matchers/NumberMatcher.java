@@ -23,18 +23,18 @@ public class NumberMatcher extends LexMatcher {
             return MatchResult.NO_MATCH;
         }
         int start = skipSpacesAndComments(i);
-        if (javaLexed.get(start).getType() != javax0.javalex.LexicalElement.Type.INTEGER && javaLexed.get(start).getType() != javax0.javalex.LexicalElement.Type.FLOAT) {
+        if (javaLexed.getType(start) != javax0.javalex.LexicalElement.Type.INTEGER && javaLexed.getType(start) != javax0.javalex.LexicalElement.Type.FLOAT) {
             return MatchResult.NO_MATCH;
         }
         if (predicate != null) {
-            if (javaLexed.get(start).getType() == javax0.javalex.LexicalElement.Type.INTEGER) {
-                if (predicate.test(((LexicalElement.IntegerLiteral) javaLexed.get(start)).value)) {
+            if (javaLexed.getType(start) == javax0.javalex.LexicalElement.Type.INTEGER) {
+                if (predicate.test(((LexicalElement.IntegerLiteral) javaLexed.get(start)).getValue())) {
                     return matching( start, start + 1);
                 } else {
                     return MatchResult.NO_MATCH;
                 }
             } else {
-                if (predicate.test(((LexicalElement.FloatLiteral) javaLexed.get(start)).value)) {
+                if (predicate.test(((LexicalElement.FloatLiteral) javaLexed.get(start)).getValue())) {
                     return matching( start, start + 1);
                 } else {
                     return MatchResult.NO_MATCH;
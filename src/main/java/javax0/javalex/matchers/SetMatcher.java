@@ -3,8 +3,6 @@ package javax0.javalex.matchers;
 import javax0.javalex.JavaLexed;
 import javax0.javalex.MatchResult;
 
-import java.util.HashSet;
-
 public class SetMatcher extends LexMatcher {
     private final LexMatcher[] matchers;
 
@@ -18,15 +16,17 @@ public class SetMatcher extends LexMatcher {
         if( consumed() ){
             return MatchResult.NO_MATCH;
         }
-        final var wasMatched = new HashSet<LexMatcher>();
+        final var wasMatched = new boolean[matchers.length];
+        int matchedCount = 0;
         int start = skipSpacesAndComments(i);
         int j = start;
-        while (wasMatched.size() < matchers.length) {
-            final var matchedSetSize = wasMatched.size();
-            for (LexMatcher matcher : matchers) {
-                if (wasMatched.contains(matcher)) {
+        while (matchedCount < matchers.length) {
+            final var matchedSetSize = matchedCount;
+            for (int k = 0; k < matchers.length; k++) {
+                if (wasMatched[k]) {
                     continue;
                 }
+                final var matcher = matchers[k];
                 j = skipSpacesAndComments(j);
                 if (j >= javaLexed.size()) {
                     return MatchResult.NO_MATCH;
@@ -34,12 +34,13 @@ public class SetMatcher extends LexMatcher {
                 matcher.reset();
                 final var result = matcher.matchesAt(j);
                 if (result.matches) {
-                    wasMatched.add(matcher);
+                    wasMatched[k] = true;
+                    matchedCount++;
                     j = result.end;
                     break;
                 }
             }
-            if (matchedSetSize == wasMatched.size()) {
+            if (matchedSetSize == matchedCount) {
                 return MatchResult.NO_MATCH;
             }
         }
@@ -1,11 +1,20 @@
 package javax0.javalex.matchers;
 
+import javax0.javalex.lex.Keyword;
 import javax0.javalex.lex.LexicalElement;
+import javax0.javalex.lex.SymbolTable;
 import javax0.javalex.JavaLexed;
 import javax0.javalex.MatchResult;
 
 public class TerminalLexMatcher extends LexMatcher {
     private final LexicalElement le;
+    /**
+     * The ID of the identifier or symbol lexeme in the symbol table of
+     * the matched elements. It is looked up again while the lexeme is
+     * not in the table, because the ID of a modified element is
+     * registered when it is first requested.
+     */
+    private int id = SymbolTable.NO_ID;
 
     public TerminalLexMatcher(Lexpression lexpression, JavaLexed javaLexed, LexicalElement le) {
         super(lexpression, javaLexed);
@@ -19,7 +28,23 @@ public class TerminalLexMatcher extends LexMatcher {
         }
         int j = skipSpacesAndComments(i);
         if (j < javaLexed.size()) {
-            final var matches = super.javaLexed.get(j).equals(le);
+            final boolean matches;
+            final int keyword = le.getKeyword();
+            if (keyword != Keyword.NO_KEYWORD) {
+                matches = javaLexed.getKeyword(j) == keyword;
+            } else if (le.getType().is(LexicalElement.Type.IDENTIFIER, LexicalElement.Type.SYMBOL)) {
+                if (javaLexed.getType(j) == le.getType()) {
+                    final int elementId = javaLexed.getId(j);
+                    if (id == SymbolTable.NO_ID) {
+                        id = javaLexed.symbols().find(le.getLexeme());
+                    }
+                    matches = id != SymbolTable.NO_ID && elementId == id;
+                } else {
+                    matches = false;
+                }
+            } else {
+                matches = super.javaLexed.get(j).equals(le);
+            }
             if (matches) {
                 return matching( j, j + 1);
             }
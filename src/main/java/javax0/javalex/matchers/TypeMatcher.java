@@ -34,7 +34,7 @@ public class TypeMatcher extends AbstractPatternedMatcher {
         int j = skipSpacesAndComments(result.end);
         while (j < javaLexed.size() && javaLexed.get(j).getLexeme().equals(".")) {
             j = skipSpacesAndComments(j + 1);
-            if (j < javaLexed.size() && javaLexed.get(j).getType() == LexicalElement.Type.IDENTIFIER) {
+            if (j < javaLexed.size() && javaLexed.getType(j) == LexicalElement.Type.IDENTIFIER) {
                 j = skipSpacesAndComments(j + 1);
             } else {
                 return MatchResult.NO_MATCH;
@@ -1,4 +1,5 @@
 module javaLex {
  exports javax0.javalex;
+ exports javax0.javalex.lex;
  exports javax0.javalex.matchers;
-}
\ No newline at end of file
+}
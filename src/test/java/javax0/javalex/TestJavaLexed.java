@@ -5,7 +5,11 @@ import javax0.javalex.lex.LexicalElement.Spacing;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 
 public class TestJavaLexed {
@@ -173,6 +177,22 @@ public class TestJavaLexed {
         // end snippet
     }
 
+    @Test
+    @DisplayName("Modifications of a fetched lexical element are kept.")
+    void keepsModifiedElement() {
+        final var source = "public static final int i = 0x13;";
+        final var sut = new JavaLexed(source);
+        Assertions.assertEquals(LexicalElement.Type.INTEGER, sut.getType(12));
+        Assertions.assertEquals(LexicalElement.Type.INVALID, sut.getType(sut.size()));
+        Assertions.assertSame(sut.get(2), sut.get(2));
+        sut.get(2).setLexeme("volatile");
+        sut.get(10).setLexeme("+=");
+        sut.remove(0);
+        sut.add(0, new Identifier("private"));
+        sut.close();
+        Assertions.assertEquals("private volatile final int i += 0x13;", sut.toString());
+    }
+
     @Test
     @DisplayName("Can remove a range of lexical elements.")
     void removesRange() {
@@ -253,4 +273,74 @@ public class TestJavaLexed {
                 "IDENTIFIER[private]\n", lexed);
         //end snippet
     }
+
+    @Test
+    @DisplayName("A small source file is read into the heap, modifying the file does not change the lexed source.")
+    void smallFileIsNotMapped(@TempDir Path dir) throws IOException {
+        final var file = Files.writeString(dir.resolve("A.java"), "class A { int i = 1; }");
+        try (final var sut = JavaLexed.of(file)) {
+            Files.writeString(file, "x");
+            Assertions.assertEquals("class", sut.get(0).getLexeme());
+            Assertions.assertEquals("i", sut.get(8).getLexeme());
+            Assertions.assertEquals("class A { int i = 1; }", sut.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("A saved JavaLexed is loaded with the same source and elements, but a modified one cannot be saved")
+    void writesAndLoads(@TempDir Path dir) throws IOException {
+        final var source = "package a;\n/* comment */\nclass A { int i = 1; }\n";
+        final var file = dir.resolve("A.jlex");
+        try (final var javaLexed = new JavaLexed(source)) {
+            javaLexed.write(file);
+        }
+        try (final var javaLexed = JavaLexed.load(file)) {
+            Assertions.assertEquals(source, javaLexed.toString());
+            final var lexed = new JavaLexed(source);
+            Assertions.assertEquals(lexed.size(), javaLexed.size());
+            for (int i = 0; i < lexed.size(); i++) {
+                Assertions.assertEquals(lexed.get(i).getType(), javaLexed.get(i).getType());
+                Assertions.assertEquals(lexed.get(i).getLexeme(), javaLexed.get(i).getLexeme());
+            }
+            javaLexed.remove(0);
+            Assertions.assertThrows(IllegalStateException.class, () -> javaLexed.write(file));
+        }
+        Files.writeString(file, source);
+        Assertions.assertThrows(IOException.class, () -> JavaLexed.load(file));
+    }
+
+    @Test
+    @DisplayName("A JavaLexed whose elements were changed in place cannot be saved, one whose elements were only read can")
+    void changedElementIsNotSaved(@TempDir Path dir) throws IOException {
+        final var file = dir.resolve("A.jlex");
+        try (final var javaLexed = new JavaLexed("int i = 1; String s = \"a\\tb\";")) {
+            for (int i = 0; i < javaLexed.size(); i++) {
+                javaLexed.get(i).getLexeme();
+            }
+            javaLexed.write(file);
+            javaLexed.get(2).setLexeme("j");
+            Assertions.assertThrows(IllegalStateException.class, () -> javaLexed.write(file));
+            javaLexed.get(2).setLexeme("i");
+            javaLexed.write(file);
+            final var string = javaLexed.get(javaLexed.size() - 2);
+            Assertions.assertEquals(LexicalElement.Type.STRING, string.getType());
+            string.setLexeme("c");
+            Assertions.assertThrows(IllegalStateException.class, () -> javaLexed.write(file));
+            string.setOriginal("d");
+            Assertions.assertThrows(IllegalStateException.class, () -> javaLexed.write(file));
+        }
+    }
+
+    @Test
+    @DisplayName("A JavaLexed can be created through a token cache")
+    void usesTokenCache(@TempDir Path dir) throws IOException {
+        final var file = Files.writeString(dir.resolve("A.java"), "class A { int i = 1; }");
+        final var cache = new javax0.javalex.lex.TokenCache(dir.resolve("cache"), Long.MAX_VALUE);
+        for (int i = 0; i < 2; i++) {
+            try (final var javaLexed = JavaLexed.of(file, cache)) {
+                Assertions.assertEquals("class A { int i = 1; }", javaLexed.toString());
+                Assertions.assertEquals("int", javaLexed.get(6).getLexeme());
+            }
+        }
+    }
 }
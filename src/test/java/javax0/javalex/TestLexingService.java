@@ -0,0 +1,61 @@
+package javax0.javalex;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+class TestLexingService {
+
+    @Test
+    @DisplayName("All files are lexed and the errors are returned per file")
+    void lexesAllFiles(@TempDir Path dir) throws IOException {
+        final var small = Files.writeString(dir.resolve("A.java"), "class A {}\n");
+        final var large = Files.writeString(dir.resolve("B.java"), "class B { int i = 1; }\n".repeat(1000));
+        final var broken = Files.writeString(dir.resolve("C.java"), "class C { String s = \"unterminated; }");
+        final var missing = dir.resolve("D.java");
+        final var executor = Executors.newFixedThreadPool(2);
+        final var results = new HashMap<Path, LexingService.Result>();
+        try (final var service = new LexingService(executor)) {
+            service.lexAll(List.of(small, large, broken, missing)).forEach(r -> results.put(r.path, r));
+        } finally {
+            executor.shutdown();
+        }
+        Assertions.assertEquals(4, results.size());
+        Assertions.assertEquals("class A {}\n", results.get(small).javaLexed.toString());
+        Assertions.assertEquals(1000 * 17, results.get(large).javaLexed.size());
+        Assertions.assertNull(results.get(small).error);
+        Assertions.assertTrue(results.get(broken).error instanceof RuntimeException);
+        Assertions.assertTrue(results.get(missing).error instanceof IOException);
+    }
+
+    @Test
+    @DisplayName("The files are lexed in the order of their size, the largest file first")
+    void largestFirst(@TempDir Path dir) throws IOException {
+        final var paths = new ArrayList<Path>();
+        for (final int lines : new int[]{3, 100, 1, 40, 7}) {
+            paths.add(Files.writeString(dir.resolve("A" + lines + ".java"), "class A { int i = 1; }\n".repeat(lines)));
+        }
+        final var missing = dir.resolve("Missing.java");
+        paths.add(0, missing);
+        // a single thread finishes the tasks in the order they were submitted
+        final var executor = Executors.newSingleThreadExecutor();
+        final List<Path> order;
+        try (final var service = new LexingService(executor)) {
+            order = service.lexAll(paths).map(r -> r.path).collect(Collectors.toList());
+        } finally {
+            executor.shutdown();
+        }
+        Assertions.assertEquals(List.of(dir.resolve("A100.java"), dir.resolve("A40.java"), dir.resolve("A7.java"),
+            dir.resolve("A3.java"), dir.resolve("A1.java"), missing), order);
+    }
+}
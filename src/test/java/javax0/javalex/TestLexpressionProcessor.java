@@ -0,0 +1,177 @@
+package javax0.javalex;
+
+import javax0.javalex.lex.Lexer;
+import javax0.javalex.matchers.Lexpression;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.stream.Collectors;
+
+import static javax0.javalex.LexpressionBuilder.identifier;
+import static javax0.javalex.LexpressionBuilder.list;
+import static javax0.javalex.LexpressionBuilder.match;
+import static javax0.javalex.LexpressionBuilder.number;
+
+public class TestLexpressionProcessor {
+
+    /**
+     * The subscription of the processor to an upstream that the test feeds by hand.
+     */
+    private static class Upstream implements Flow.Subscription {
+        private long requested = 0;
+        private boolean cancelled = false;
+
+        @Override
+        public void request(long n) {
+            requested += n;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    /**
+     * Collects the matches, joining the lexemes of a match with a space.
+     */
+    private static class Downstream implements Flow.Subscriber<List<LexicalElement>> {
+        private final List<String> matches = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private Throwable error = null;
+        private boolean completed = false;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(List<LexicalElement> item) {
+            matches.add(item.stream().map(LexicalElement::getLexeme).collect(Collectors.joining(" ")));
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    @Test
+    @DisplayName("The processor publishes the matches found in the published lexical elements on demand")
+    void processorFindsMatchesInPublishedElements() {
+        final var source = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            source.append("int a").append(i).append(" = ").append(i).append(";\n");
+        }
+        final var processor = new LexpressionProcessor(list(match("int"), identifier()), Lexpression.NO_SENSITIVITY, 8);
+        new Lexer().publisher(new StringReader(source.toString())).subscribe(processor);
+        final var matches = new ArrayList<String>();
+        final var completed = new boolean[1];
+        processor.subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(List<LexicalElement> item) {
+                matches.add(item.stream().map(LexicalElement::getLexeme).collect(Collectors.joining(" ")));
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                Assertions.fail(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                completed[0] = true;
+            }
+        });
+        Assertions.assertTrue(completed[0]);
+        Assertions.assertEquals(100, matches.size());
+        Assertions.assertEquals("int a0", matches.get(0));
+        Assertions.assertEquals("int a99", matches.get(99));
+    }
+
+    @Test
+    @DisplayName("Elements are requested only on demand and not more than the window, cancelling cancels the upstream")
+    void backpressureAndCancel() {
+        final var processor = new LexpressionProcessor(list(match("int"), identifier()), Lexpression.NO_SENSITIVITY, 8);
+        final var upstream = new Upstream();
+        final var downstream = new Downstream();
+        processor.onSubscribe(upstream);
+        processor.subscribe(downstream);
+        Assertions.assertEquals(0, upstream.requested);
+
+        downstream.subscription.request(1);
+        Assertions.assertEquals(8, upstream.requested);
+        final var elements = new Lexer().apply("int a ; int b ; int c ; int d ;");
+        for (int i = 0; i < 8; i++) {
+            processor.onNext(elements[i]);
+        }
+        Assertions.assertEquals(List.of("int a"), downstream.matches);
+        Assertions.assertEquals(8, upstream.requested);
+
+        downstream.subscription.request(1);
+        Assertions.assertEquals(10, upstream.requested);
+        downstream.subscription.cancel();
+        Assertions.assertTrue(upstream.cancelled);
+        for (int i = 8; i < elements.length; i++) {
+            processor.onNext(elements[i]);
+        }
+        processor.onComplete();
+        Assertions.assertEquals(List.of("int a"), downstream.matches);
+        Assertions.assertFalse(downstream.completed);
+        Assertions.assertNull(downstream.error);
+    }
+
+    @Test
+    @DisplayName("A match that is cut by the end of the window is found when the window moves on")
+    void matchAcrossTheWindowBoundary() {
+        final var processor = new LexpressionProcessor(list(match("int"), identifier(), match("="), number()), Lexpression.NO_SENSITIVITY, 8);
+        // the first window ends after 'int a', the rest of the match arrives with the next elements
+        new Lexer().publisher(new StringReader("x ; x ; x ; int a = 1 ; int b = 2 ;")).subscribe(processor);
+        final var downstream = new Downstream();
+        processor.subscribe(downstream);
+        downstream.subscription.request(Long.MAX_VALUE);
+        Assertions.assertNull(downstream.error);
+        Assertions.assertTrue(downstream.completed);
+        Assertions.assertEquals(List.of("int a = 1", "int b = 2"), downstream.matches);
+    }
+
+    @Test
+    @DisplayName("The error of the upstream is passed to the subscriber")
+    void upstreamError() {
+        final var processor = new LexpressionProcessor(list(match("int"), identifier()), Lexpression.NO_SENSITIVITY, 8);
+        final var upstream = new Upstream();
+        final var downstream = new Downstream();
+        processor.onSubscribe(upstream);
+        processor.subscribe(downstream);
+        downstream.subscription.request(1);
+        for (final var element : new Lexer().apply("int a ;")) {
+            processor.onNext(element);
+        }
+        final var error = new IOException("The source cannot be read.");
+        processor.onError(error);
+        Assertions.assertSame(error, downstream.error);
+        Assertions.assertFalse(downstream.completed);
+        Assertions.assertEquals(List.of(), downstream.matches);
+    }
+}
@@ -1,7 +1,10 @@
 package javax0.javalex;
 
+import javax0.javalex.lex.Lexer;
+import javax0.javalex.lex.SymbolTable;
 import javax0.javalex.matchers.Lexpression;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.Modifier;
@@ -130,6 +133,20 @@ public class TestMatching {
         }
     }
 
+    @Test
+    void testOffHeapFinding() {
+        final var source = "private final int z = 13;\npublic var h = \"kkk\"";
+        try (final var store = Lexer.shared(true, true).tokenize(source).offHeap();
+             final var javaLexed = JavaLexed.of(store)) {
+            final var result = javaLexed.find(list(oneOf(group("protection"), "public", "private"), match("var h"))).fromStart().result();
+            Assertions.assertTrue(result.matches);
+            Assertions.assertEquals(13, result.start);
+            Assertions.assertEquals(18, result.end);
+            Assertions.assertEquals("public", javaLexed.group("protection").get(0).getLexeme());
+            Assertions.assertThrows(UnsupportedOperationException.class, () -> javaLexed.remove(0));
+        }
+    }
+
     @Test
     void testSimpleGroupCollection() {
     //snippet testSimpleGroupCollection
@@ -684,6 +701,71 @@ public class TestMatching {
         }
     }
 
+    @Test
+    @DisplayName("Inserted elements of any class are matched as modifiers and keywords by their lexeme")
+    void testInsertedModifiers() {
+        try (final var javaLexed = new JavaLexed("int h;")) {
+            javaLexed.add(0, new LexicalElement() {
+                private String lexeme = "private";
+
+                @Override
+                public String getLexeme() {
+                    return lexeme;
+                }
+
+                @Override
+                public void setLexeme(String lexeme) {
+                    this.lexeme = lexeme;
+                }
+
+                @Override
+                public void setOriginal(String original) {
+                }
+
+                @Override
+                public String getFullLexeme() {
+                    return lexeme;
+                }
+
+                @Override
+                public String getOriginalLexeme() {
+                    return null;
+                }
+
+                @Override
+                public Type getType() {
+                    return Type.IDENTIFIER;
+                }
+            });
+            javaLexed.add(1, new javax0.javalex.lex.LexicalElement.Spacing(" "));
+            Assertions.assertTrue(javaLexed.match(list(modifier(Modifier.PRIVATE), match(" int h;"))).fromStart().result().matches);
+            Assertions.assertTrue(javaLexed.match(list(keyword("private"), keyword("int"))).fromStart().result().matches);
+            javaLexed.get(0).setLexeme("strict");
+            Assertions.assertTrue(javaLexed.match(modifier(Modifier.STRICT)).fromStart().result().matches);
+            Assertions.assertFalse(javaLexed.match(modifier(Modifier.PRIVATE)).fromStart().result().matches);
+        }
+    }
+
+    @Test
+    @DisplayName("Identifiers and symbols are matched by their symbol table ID, a lexeme missing from the table is not registered by the match")
+    void testMatchingById() {
+        try (final var javaLexed = new JavaLexed("int h = k; h += 1;")) {
+            final var symbols = javaLexed.symbols();
+            Assertions.assertFalse(javaLexed.find(match("z")).fromStart().result().matches);
+            Assertions.assertEquals(SymbolTable.NO_ID, symbols.find("z"));
+
+            final var result = javaLexed.find(match("h +=")).fromStart().result();
+            Assertions.assertTrue(result.matches);
+            Assertions.assertEquals(symbols.find("h"), javaLexed.getId(result.start));
+            Assertions.assertEquals(symbols.find("+="), javaLexed.getId(result.end - 1));
+
+            Assertions.assertEquals("k", javaLexed.getLexeme(6));
+            javaLexed.get(6).setLexeme("z");
+            Assertions.assertEquals(6, javaLexed.find(match("z")).fromStart().result().start);
+            Assertions.assertEquals(javaLexed.getId(6), symbols.find("z"));
+        }
+    }
+
     @Test
     void testBackTrackOneStep() {
         final var source = "public public var h = 'kkk'";
@@ -747,5 +829,4 @@ public class TestMatching {
         }
         Assertions.assertEquals("/** this is a comment */ public var h = ", jL.toString());
     }
-
 }
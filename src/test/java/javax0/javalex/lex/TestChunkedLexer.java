@@ -0,0 +1,55 @@
+package javax0.javalex.lex;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static javax0.javalex.lex.Tokens.SAMPLE;
+import static javax0.javalex.lex.Tokens.describe;
+
+public class TestChunkedLexer {
+
+    @Test
+    @DisplayName("Feeding the source in chunks of any size gives the same elements as lexing the string")
+    void chunksOfAnySize() {
+        final var lexer = new Lexer().spaceSensitive().commentSensitive();
+        final var expected = describe(lexer.apply(SAMPLE));
+        for (int size = 1; size < 8; size++) {
+            final var elements = new ArrayList<LexicalElement>();
+            final var chunked = lexer.chunked(elements::add);
+            for (int i = 0; i < SAMPLE.length(); i += size) {
+                chunked.feed(CharBuffer.wrap(SAMPLE, i, Math.min(SAMPLE.length(), i + size)));
+            }
+            chunked.end();
+            Assertions.assertEquals(expected, describe(elements), "chunk size " + size);
+        }
+    }
+
+    @Test
+    @DisplayName("An element at the end of a chunk is held back, because the next chunk may continue it")
+    void elementAtTheEndOfTheChunk() {
+        final var elements = new ArrayList<String>();
+        final var chunked = new Lexer().chunked(e -> elements.add(e.getLexeme()));
+        chunked.feed(CharBuffer.wrap("a >>"));
+        Assertions.assertEquals(List.of("a"), elements);
+        chunked.feed(CharBuffer.wrap(">= b"));
+        Assertions.assertFalse(elements.contains(">>"));
+        chunked.end();
+        Assertions.assertEquals(List.of("a", ">>>=", "b"), elements);
+    }
+
+    @Test
+    @DisplayName("The end of the source is signalled once and fails like the lexer")
+    void end() {
+        final var chunked = new Lexer().chunked(e -> {
+        });
+        chunked.feed(CharBuffer.wrap("a /* b"));
+        Assertions.assertThrows(RuntimeException.class, chunked::end);
+        Assertions.assertThrows(IllegalStateException.class, chunked::end);
+        Assertions.assertThrows(IllegalStateException.class, () -> chunked.feed(CharBuffer.wrap("*/")));
+    }
+}
@@ -0,0 +1,51 @@
+package javax0.javalex.lex;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestKeyword {
+
+    @Test
+    @DisplayName("Every keyword has a unique code and the other words have none")
+    void codes() {
+        for (int code = 0; code < Keyword.COUNT; code++) {
+            Assertions.assertEquals(code, Keyword.code(Keyword.name(code)));
+            final var name = "x" + Keyword.name(code) + "x";
+            Assertions.assertEquals(code, Keyword.code(name, 1, name.length() - 1));
+        }
+        for (final var notKeyword : new String[]{"Int", "integer", "in", "", "__", "true", "null", "non", "strict", "yields"}) {
+            Assertions.assertEquals(Keyword.NO_KEYWORD, Keyword.code(notKeyword));
+        }
+    }
+
+    @Test
+    @DisplayName("Keywords and contextual keywords get their keyword code when they are lexed")
+    void lexedKeywords() {
+        final var store = new Lexer().tokenize("public record R(int var) { var yield = \"int\"; sealed.x(); }");
+        final var keywords = new ArrayList<String>();
+        for (int i = 0; i < store.size(); i++) {
+            final int code = store.getKeyword(i);
+            Assertions.assertEquals(code, ((LexicalElement) store.get(i)).getKeyword());
+            if (code != Keyword.NO_KEYWORD) {
+                Assertions.assertEquals(Keyword.name(code), store.get(i).getLexeme());
+                keywords.add(store.get(i).getLexeme() + (Keyword.isContextual(code) ? "?" : ""));
+            }
+        }
+        Assertions.assertEquals(List.of("public", "record?", "int", "var?", "var?", "yield?", "sealed?"), keywords);
+    }
+
+    @Test
+    @DisplayName("The keyword code of an element follows the changes of its lexeme")
+    void modifiedKeyword() {
+        final var element = new Lexer().apply("int")[0];
+        Assertions.assertEquals(Keyword.code("int"), element.getKeyword());
+        element.setLexeme("long");
+        Assertions.assertEquals(Keyword.code("long"), element.getKeyword());
+        element.setLexeme("integer");
+        Assertions.assertEquals(Keyword.NO_KEYWORD, element.getKeyword());
+    }
+}
@@ -0,0 +1,108 @@
+package javax0.javalex.lex;
+
+import javax0.javalex.lex.eaters.IdentifierLiteral;
+import javax0.javalex.lex.eaters.SpaceLiteral;
+import javax0.javalex.lex.eaters.SymbolLiteral;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static javax0.javalex.lex.Tokens.describe;
+
+public class TestLexer {
+
+    /**
+     * A custom lex eater that recognizes {@code #name} as a single identifier.
+     */
+    private static class HashIdentifier implements LexEater {
+        @Override
+        public boolean mayStartWith(char ch) {
+            return ch == '#';
+        }
+
+        @Override
+        public LexicalElement apply(LexInput in) {
+            if (in.length() < 2 || in.charAt(0) != '#' || !Character.isJavaIdentifierStart(in.charAt(1))) {
+                return null;
+            }
+            final int start = in.position();
+            in.skip(1);
+            while (in.length() > 0 && Character.isJavaIdentifierPart(in.charAt(0))) {
+                in.skip(1);
+            }
+            return new LexicalElement.Identifier(in.lexeme(start));
+        }
+    }
+
+    @Test
+    @DisplayName("Custom lex eaters join the first character dispatch")
+    void customLexEater() {
+        final var lexer = new Lexer(new LexEater[]{
+            new SpaceLiteral(),
+            new HashIdentifier(),
+            new IdentifierLiteral(),
+            new SymbolLiteral(),
+        });
+        Assertions.assertEquals(List.of("IDENTIFIER[#define]", "IDENTIFIER[x]", "SYMBOL[#]", "SYMBOL[;]"),
+            describe(lexer.apply("#define x # ;")));
+    }
+
+    @Test
+    @DisplayName("Ignored spaces are skipped without creating the element objects")
+    void ignoredSpacesAreNotCreated() {
+        final var created = new int[1];
+        final var lexer = new Lexer(new LexEater[]{
+            new SpaceLiteral() {
+                @Override
+                public LexicalElement apply(LexInput in) {
+                    created[0]++;
+                    return super.apply(in);
+                }
+            },
+            new IdentifierLiteral(),
+            new SymbolLiteral(),
+        });
+        Assertions.assertEquals(3, lexer.apply("a = b").length);
+        Assertions.assertEquals(0, created[0]);
+        Assertions.assertEquals(5, lexer.spaceSensitive().apply("a = b").length);
+        Assertions.assertEquals(2, created[0]);
+    }
+
+    @Test
+    @DisplayName("Shared lexers are cached per sensitivity and immutable")
+    void sharedLexers() {
+        Assertions.assertSame(Lexer.shared(true, false), Lexer.shared(true, false));
+        Assertions.assertNotSame(Lexer.shared(true, false), Lexer.shared(false, true));
+        Assertions.assertTrue(Lexer.shared(true, false).isSpaceSensitive());
+        Assertions.assertFalse(Lexer.shared(true, false).isCommentSensitive());
+        Assertions.assertFalse(Lexer.shared(true, true).isParallel());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> Lexer.shared(false, false).spaceSensitive());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> Lexer.shared(false, false).commentSensitive());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> Lexer.shared(false, false).parallel());
+    }
+
+    @Test
+    @DisplayName("The sensitivity of the lexer decides if the spaces and the comments are returned")
+    void sensitivity() {
+        final var source = "a /* c */ b";
+        Assertions.assertEquals(List.of("IDENTIFIER[a]", "IDENTIFIER[b]"), describe(Lexer.shared(false, false).apply(source)));
+        Assertions.assertEquals(List.of("IDENTIFIER[a]", "SPACING[ ]", "SPACING[ ]", "IDENTIFIER[b]"),
+            describe(Lexer.shared(true, false).apply(source)));
+        Assertions.assertEquals(List.of("IDENTIFIER[a]", "COMMENT[/* c */]", "IDENTIFIER[b]"),
+            describe(Lexer.shared(false, true).apply(source)));
+        Assertions.assertEquals(describe(new Lexer().spaceSensitive().commentSensitive().apply(source)),
+            describe(Lexer.shared(true, true).apply(source)));
+    }
+
+    @Test
+    @DisplayName("Scanning passes the type and the range of each element to the sink")
+    void scanToSink() {
+        final var source = "int a = 1; // c";
+        final var ranges = new ArrayList<String>();
+        new Lexer().commentSensitive().scan(source, (kind, start, end) -> ranges.add(kind.name() + "[" + start + "," + end + "]"));
+        Assertions.assertEquals(List.of("IDENTIFIER[0,3]", "IDENTIFIER[4,5]", "SYMBOL[6,7]", "INTEGER[8,9]", "SYMBOL[9,10]", "COMMENT[11,15]"), ranges);
+    }
+}
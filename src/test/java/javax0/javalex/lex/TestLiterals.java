@@ -0,0 +1,145 @@
+package javax0.javalex.lex;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static javax0.javalex.lex.Tokens.describe;
+
+public class TestLiterals {
+
+    @Test
+    @DisplayName("Number literals are recognized with the longest possible match")
+    void numberLiterals() {
+        final var source = "0x1F 0X2aL 13 -5 1. 1e5 1E-5 1.5e+3f 3d 0x1p3 0x1.8P-2d 0x.8p1 1.e2 1e 0x 1L 0b";
+        Assertions.assertEquals(List.of(
+            "INTEGER[0x1F]",
+            "INTEGER[0X2aL]",
+            "INTEGER[13]",
+            "INTEGER[-5]",
+            "FLOAT[1.]",
+            "FLOAT[1e5]",
+            "FLOAT[1E-5]",
+            "FLOAT[1.5e+3f]",
+            "FLOAT[3d]",
+            "FLOAT[0x1p3]",
+            "FLOAT[0x1.8P-2d]",
+            "FLOAT[0x.8p1]",
+            "FLOAT[1.e2]",
+            "INTEGER[1]",
+            "IDENTIFIER[e]",
+            "INTEGER[0]",
+            "IDENTIFIER[x]",
+            "INTEGER[1L]",
+            "INTEGER[0]",
+            "IDENTIFIER[b]"), describe(new Lexer().apply(source)));
+    }
+
+    private static long integerValue(String source) {
+        return ((LexicalElement.IntegerLiteral) new Lexer().apply(source)[0]).getValue();
+    }
+
+    @Test
+    @DisplayName("Integer values are decoded with underscores, radix prefixes and unsigned 64-bit range")
+    void integerValues() {
+        Assertions.assertEquals(1_000_000L, integerValue("1_000_000"));
+        Assertions.assertEquals(-5L, integerValue("-5"));
+        Assertions.assertEquals(15L, integerValue("017"));
+        Assertions.assertEquals(0L, integerValue("0"));
+        Assertions.assertEquals(5L, integerValue("0b101"));
+        Assertions.assertEquals(-31L, integerValue("-0x1F"));
+        Assertions.assertEquals(0xCAFE_BABEL, integerValue("0xCAFE_BABEL"));
+        Assertions.assertEquals(-1L, integerValue("0xFFFFFFFFFFFFFFFFL"));
+        Assertions.assertEquals(-1L, integerValue("01777777777777777777777L"));
+        Assertions.assertEquals(Long.MIN_VALUE, integerValue("-9223372036854775808L"));
+        Assertions.assertThrows(NumberFormatException.class, () -> integerValue("9223372036854775808L"));
+        Assertions.assertThrows(NumberFormatException.class, () -> integerValue("0x1FFFFFFFFFFFFFFFFL"));
+        Assertions.assertThrows(NumberFormatException.class, () -> integerValue("09"));
+        Assertions.assertThrows(NumberFormatException.class, () -> integerValue("0b2"));
+    }
+
+    @Test
+    @DisplayName("The value of a number literal follows the changes of its lexeme")
+    void valuesFollowTheLexeme() {
+        final var integer = (LexicalElement.IntegerLiteral) new Lexer().apply("0x10")[0];
+        Assertions.assertEquals(16L, integer.getValue());
+        integer.setLexeme("010");
+        Assertions.assertEquals(8L, integer.getValue());
+        final var floating = (LexicalElement.FloatLiteral) new Lexer().apply("0x1.8P-2d")[0];
+        Assertions.assertEquals(0.375, floating.getValue());
+        floating.setLexeme("2.5e1");
+        Assertions.assertEquals(25.0, floating.getValue());
+    }
+
+    @Test
+    @DisplayName("Operators are recognized with the longest match")
+    void operators() {
+        Assertions.assertEquals(List.of(
+            "IDENTIFIER[a]",
+            "SYMBOL[>>>=]",
+            "IDENTIFIER[b]",
+            "SYMBOL[>>]",
+            "IDENTIFIER[c]",
+            "SYMBOL[.]",
+            "SYMBOL[.]",
+            "IDENTIFIER[d]",
+            "SYMBOL[...]",
+            "IDENTIFIER[e]",
+            "SYMBOL[->]",
+            "IDENTIFIER[f]",
+            "SYMBOL[;]",
+            "SYMBOL[;]"), describe(new Lexer().apply("a>>>=b>>c..d...e->f;;")));
+    }
+
+    @Test
+    @DisplayName("Every operator is a separate element that can be modified without changing the others")
+    void operatorsAreModifiable() {
+        final var elements = new Lexer().apply("a + b + c");
+        elements[1].setLexeme("-");
+        Assertions.assertEquals("-", elements[1].getLexeme());
+        Assertions.assertEquals("+", elements[3].getLexeme());
+    }
+
+    @Test
+    @DisplayName("String and character literals are decoded when the lexeme is requested")
+    void lazyEscapeDecoding() {
+        final var elements = new Lexer().apply("\"plain\" \"tab\\t\\101\" 'x' '\\n' \"\"\"\r\n  a\r\n  \"\"\"");
+        final var plain = (LexicalElement.StringLiteral) elements[0];
+        Assertions.assertSame(plain.getLexeme(), plain.getLexeme());
+        Assertions.assertEquals("plain", plain.getLexeme());
+        Assertions.assertEquals("tab\tA", elements[1].getLexeme());
+        Assertions.assertEquals("\"tab\\t\\101\"", elements[1].getOriginalLexeme());
+        Assertions.assertEquals("x", elements[2].getLexeme());
+        Assertions.assertEquals("\n", elements[3].getLexeme());
+        Assertions.assertEquals("'\\n'", elements[3].getOriginalLexeme());
+        Assertions.assertEquals("\n  a\n  ", elements[4].getLexeme());
+        Assertions.assertEquals("\"\"\"\r\n  a\r\n  \"\"\"", elements[4].getOriginalLexeme());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new Lexer().apply("\"\\u0041\""));
+    }
+
+    @Test
+    @DisplayName("Supplementary characters are classified by their code point")
+    void supplementaryIdentifiers() {
+        final var bold = new String(Character.toChars(0x1D400));
+        Assertions.assertEquals(List.of(
+            "IDENTIFIER[" + bold + "x" + bold + "]",
+            "SPACING[\u2003]",
+            "SYMBOL[=]",
+            "SPACING[ ]",
+            "INTEGER[1]"), describe(new Lexer().spaceSensitive().apply(bold + "x" + bold + "\u2003= 1")));
+    }
+
+    @Test
+    @DisplayName("Comments and multi-line strings end at the first closing delimiter that is not escaped")
+    void longCommentsAndStrings() {
+        final var body = "x ".repeat(10_000);
+        Assertions.assertEquals(List.of("COMMENT[/*" + body + "* /*/]", "IDENTIFIER[a]"),
+            describe(new Lexer().commentSensitive().apply("/*" + body + "* /*/a")));
+        final var elements = new Lexer().apply("\"\"\"\n" + body + "\\\"\"\" \\n\\\"\"\"\"a");
+        Assertions.assertEquals(2, elements.length);
+        Assertions.assertEquals("\n" + body + "\"\"\" \n\"", elements[0].getLexeme());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new Lexer().apply("\"\"\"\n" + body + "\\\"\"\""));
+    }
+}
@@ -0,0 +1,61 @@
+package javax0.javalex.lex;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+
+import static javax0.javalex.lex.Tokens.SAMPLE;
+import static javax0.javalex.lex.Tokens.UTF8_SAMPLE;
+import static javax0.javalex.lex.Tokens.describe;
+
+public class TestMappedSource {
+
+    @Test
+    @DisplayName("Small files are read into the heap, large files are mapped")
+    void smallFilesAreNotMapped(@TempDir Path dir) throws IOException {
+        final var small = Files.writeString(dir.resolve("Small.java"), SAMPLE);
+        Assertions.assertFalse(MappedSource.content(small) instanceof MappedByteBuffer);
+        final var large = Files.writeString(dir.resolve("Large.java"), "x".repeat(MappedSource.MIN_MAPPED_SIZE));
+        Assertions.assertTrue(MappedSource.content(large) instanceof MappedByteBuffer);
+    }
+
+    @Test
+    @DisplayName("The content of a small file does not change when the file is modified")
+    void smallFileIsCopied(@TempDir Path dir) throws IOException {
+        final var file = Files.writeString(dir.resolve("A.java"), SAMPLE);
+        final var source = MappedSource.map(file);
+        Files.writeString(file, "");
+        Assertions.assertEquals(SAMPLE, source.toString());
+    }
+
+    @Test
+    @DisplayName("Small and large, ASCII and UTF-8 files give the same elements as lexing the string")
+    void lexFromPath(@TempDir Path dir) throws IOException {
+        final var lexer = new Lexer().spaceSensitive().commentSensitive();
+        final var large = SAMPLE.repeat(MappedSource.MIN_MAPPED_SIZE / SAMPLE.length() + 1);
+        for (final var source : new String[]{SAMPLE, UTF8_SAMPLE, large}) {
+            final var file = Files.writeString(dir.resolve("A.java"), source);
+            final var expected = describe(lexer.apply(source));
+            Assertions.assertEquals(source, MappedSource.map(file).toString());
+            Assertions.assertEquals(expected, describe(lexer.lex(file)));
+            try (final var stream = lexer.stream(file)) {
+                Assertions.assertEquals(expected, describe(stream.collect(Collectors.toList())));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("A file that is not UTF-8 encoded is rejected")
+    void rejectsInvalid(@TempDir Path dir) throws IOException {
+        final var file = Files.write(dir.resolve("A.java"), new byte[]{'a', (byte) 0xC0, (byte) 0x80});
+        Assertions.assertThrows(IOException.class, () -> MappedSource.map(file));
+        Assertions.assertThrows(IOException.class, () -> new Lexer().lex(file));
+    }
+}
@@ -0,0 +1,57 @@
+package javax0.javalex.lex;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class TestParallelLexer {
+
+    /**
+     * Every line starts a chunk when the chunk size is small, thus the chunks start inside the block comment, the text
+     * block and after string literals that look like the start of a comment or a text block.
+     */
+    private static final String SOURCE = "class A {\n" +
+        "    /* int a = 1;\n" +
+        "    String s = \"abc\";\n" +
+        "    \"\"\" not a text block\n" +
+        "    // not a line comment */\n" +
+        "    String t = \"\"\"\n" +
+        "        /* not a comment\n" +
+        "        \" int b = 2; \"\n" +
+        "        */ // still the text block\n" +
+        "        \"\"\";\n" +
+        "    String u = \"/*\"; int c = 3;\n" +
+        "    String v = \"\\\"\\\"\\\"\"; int d = 4;\n" +
+        "    char w = '\"'; // \"\"\"\n" +
+        "    int e = 5; /* */\n" +
+        "}\n";
+
+    private static String lexical(List<LexicalElement> elements) {
+        return elements.stream().map(e -> e.getType().name() + "[" + e.getFullLexeme() + "]").collect(Collectors.joining("\n"));
+    }
+
+    @Test
+    @DisplayName("Lexing in chunks gives the same elements as sequential lexing when the chunks start inside comments and literals")
+    void chunksStartInsideCommentsAndLiterals() {
+        for (final var lexer : new Lexer[]{new Lexer(), new Lexer().spaceSensitive().commentSensitive()}) {
+            final var expected = lexical(Arrays.asList(lexer.lex(SOURCE)));
+            for (int chunkSize = 1; chunkSize <= SOURCE.length(); chunkSize++) {
+                Assertions.assertEquals(expected, lexical(ParallelLexer.lex(lexer, SOURCE, chunkSize)), "chunk size " + chunkSize);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Lexing in chunks throws the same exception as sequential lexing")
+    void chunksFailAsSequentialLexing() {
+        final var source = SOURCE + "int f = 6;\n/* unterminated\nint g = 7;\n";
+        final var lexer = new Lexer().spaceSensitive().commentSensitive();
+        final var expected = Assertions.assertThrows(RuntimeException.class, () -> lexer.lex(source));
+        final var actual = Assertions.assertThrows(RuntimeException.class, () -> ParallelLexer.lex(lexer, source, 1));
+        Assertions.assertEquals(expected.getMessage(), actual.getMessage());
+    }
+}
@@ -0,0 +1,107 @@
+package javax0.javalex.lex;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Flow;
+import java.util.stream.Collectors;
+
+import static javax0.javalex.lex.Tokens.SAMPLE;
+import static javax0.javalex.lex.Tokens.describe;
+
+public class TestStreamingLexer {
+
+    private static List<String> streamed(Lexer lexer, String source, int bufferSize) {
+        final var elements = new ArrayList<LexicalElement>();
+        new StreamingLexer(lexer, new StringReader(source), bufferSize).forEachRemaining(elements::add);
+        return describe(elements);
+    }
+
+    @Test
+    @DisplayName("The elements that reach over the end of the buffer are recognized after the buffer was refilled")
+    void elementsSpanningTheBuffer() {
+        final var lexer = new Lexer().spaceSensitive().commentSensitive();
+        final var expected = describe(lexer.apply(SAMPLE));
+        for (int bufferSize = 1; bufferSize < 20; bufferSize++) {
+            Assertions.assertEquals(expected, streamed(lexer, SAMPLE, bufferSize), "buffer size " + bufferSize);
+        }
+        Assertions.assertEquals(List.of("SYMBOL[>>>=]"), streamed(lexer, ">>>=", 2));
+    }
+
+    @Test
+    @DisplayName("An element longer than the buffer grows the buffer")
+    void elementLongerThanTheBuffer() {
+        final var comment = "/*" + "x".repeat(100) + "*/";
+        Assertions.assertEquals(List.of("COMMENT[" + comment + "]", "IDENTIFIER[a]"), streamed(new Lexer().commentSensitive(), comment + "a", 8));
+    }
+
+    @Test
+    @DisplayName("The stream ignores the elements the lexer is not sensitive to and fails like the lexer")
+    void streamFromReader() {
+        Assertions.assertEquals(describe(new Lexer().apply(SAMPLE)),
+            describe(new Lexer().stream(new StringReader(SAMPLE)).collect(Collectors.toList())));
+        final var iterator = new Lexer().iterator(new StringReader("a /* b"));
+        Assertions.assertEquals("a", iterator.next().getLexeme());
+        Assertions.assertThrows(RuntimeException.class, iterator::next);
+        final var empty = new Lexer().iterator(new StringReader(""));
+        Assertions.assertFalse(empty.hasNext());
+        Assertions.assertThrows(NoSuchElementException.class, empty::next);
+    }
+
+    @Test
+    @DisplayName("The exceptions of the reader are rethrown unchecked")
+    void readerFailure() {
+        final var reader = new Reader() {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                throw new IOException("broken");
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Assertions.assertThrows(UncheckedIOException.class, () -> new Lexer().iterator(reader).hasNext());
+    }
+
+    @Test
+    @DisplayName("The publisher recognizes the elements only as they are requested")
+    void publisherOnDemand() {
+        final var received = new ArrayList<String>();
+        final var subscription = new Flow.Subscription[1];
+        new Lexer().publisher(new StringReader("a b c")).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription[0] = s;
+            }
+
+            @Override
+            public void onNext(LexicalElement item) {
+                received.add(item.getLexeme());
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                received.add("error");
+            }
+
+            @Override
+            public void onComplete() {
+                received.add("complete");
+            }
+        });
+        Assertions.assertEquals(List.of(), received);
+        subscription[0].request(2);
+        Assertions.assertEquals(List.of("a", "b"), received);
+        subscription[0].request(2);
+        Assertions.assertEquals(List.of("a", "b", "c", "complete"), received);
+    }
+}
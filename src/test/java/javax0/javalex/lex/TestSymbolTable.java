@@ -0,0 +1,73 @@
+package javax0.javalex.lex;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TestSymbolTable {
+
+    @Test
+    @DisplayName("A lexeme gets a new ID when it is interned first and the same ID later")
+    void intern() {
+        final var symbols = new SymbolTable();
+        Assertions.assertEquals(SymbolTable.NO_ID, symbols.find("a"));
+        final int a = symbols.intern("a");
+        final int b = symbols.intern("b");
+        Assertions.assertNotEquals(a, b);
+        Assertions.assertEquals(a, symbols.intern(new String("a")));
+        Assertions.assertEquals(a, symbols.find("a"));
+        Assertions.assertEquals("a", symbols.lexeme(a));
+        Assertions.assertSame(symbols.lexeme(a), symbols.lexeme(symbols.intern(new String("a"))));
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertEquals("x" + i, symbols.lexeme(symbols.intern("x" + i)));
+        }
+    }
+
+    @Test
+    @DisplayName("The IDs of the keywords are their keyword codes in every table")
+    void keywordIds() {
+        final var symbols = new SymbolTable();
+        symbols.intern("a");
+        Assertions.assertEquals(Keyword.code("class"), symbols.intern("class"));
+        Assertions.assertEquals(Keyword.code("var"), new SymbolTable().find("var"));
+        Assertions.assertEquals("class", symbols.lexeme(Keyword.code("class")));
+        Assertions.assertTrue(symbols.intern("a") >= Keyword.COUNT);
+    }
+
+    @Test
+    @DisplayName("Identifiers and symbols of a store with the same lexeme have the same ID and share the lexeme")
+    void storeIds() {
+        final var store = new Lexer().tokenize("a b a + a 1");
+        Assertions.assertEquals(store.getId(0), store.getId(2));
+        Assertions.assertNotEquals(store.getId(0), store.getId(1));
+        Assertions.assertEquals(SymbolTable.NO_ID, store.getId(5));
+        Assertions.assertSame(store.get(0).getLexeme(), store.get(2).getLexeme());
+        Assertions.assertSame(store.getLexeme(0), store.get(0).getLexeme());
+        Assertions.assertEquals(Keyword.code("class"), new Lexer().tokenize("class").getId(0));
+    }
+
+    @Test
+    @DisplayName("Modifying the lexeme of an element of the store changes its ID")
+    void modifiedLexeme() {
+        final var store = new Lexer().tokenize("a b a");
+        store.get(2).setLexeme("b");
+        Assertions.assertEquals(store.getId(1), store.getId(2));
+        Assertions.assertEquals("b", store.getLexeme(2));
+        Assertions.assertEquals("a", store.getLexeme(0));
+    }
+
+    @Test
+    @DisplayName("Every store has its own table unless a table is shared by the stores of a corpus")
+    void sharedTable() {
+        final var store = new Lexer().tokenize("a b");
+        final var other = new Lexer().tokenize("x a");
+        Assertions.assertNotSame(store.symbols(), other.symbols());
+        Assertions.assertEquals(SymbolTable.NO_ID, other.symbols().find("b"));
+        final var symbols = new SymbolTable();
+        final var first = new Lexer().tokenize("a b", symbols);
+        final var second = new Lexer().tokenize("b a", symbols);
+        Assertions.assertSame(symbols, first.symbols());
+        Assertions.assertEquals(first.getId(0), second.getId(1));
+        Assertions.assertEquals(first.getId(1), second.getId(0));
+    }
+}
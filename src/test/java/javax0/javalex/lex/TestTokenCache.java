@@ -0,0 +1,199 @@
+package javax0.javalex.lex;
+
+import javax0.javalex.lex.eaters.CharacterLiteral;
+import javax0.javalex.lex.eaters.CommentLiteral;
+import javax0.javalex.lex.eaters.IdentifierLiteral;
+import javax0.javalex.lex.eaters.NumberLiteral;
+import javax0.javalex.lex.eaters.SpaceLiteral;
+import javax0.javalex.lex.eaters.StringLiteral;
+import javax0.javalex.lex.eaters.SymbolLiteral;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static javax0.javalex.lex.Tokens.SAMPLE;
+import static javax0.javalex.lex.Tokens.describe;
+
+public class TestTokenCache {
+
+    /**
+     * Counts the elements analyzed by the lexer, so that the tests can tell if the result came from the cache.
+     */
+    private static final AtomicInteger analyzed = new AtomicInteger();
+
+    private static class CountingIdentifierLiteral extends IdentifierLiteral {
+        @Override
+        public LexicalElement.Identifier apply(LexInput in) {
+            analyzed.incrementAndGet();
+            return super.apply(in);
+        }
+    }
+
+    private static final Lexer COUNTING = new Lexer(new LexEater[]{
+        new SpaceLiteral(),
+        new CharacterLiteral(),
+        new StringLiteral(),
+        new CommentLiteral(),
+        new CountingIdentifierLiteral(),
+        new NumberLiteral(),
+        new SymbolLiteral(),
+    });
+
+    /**
+     * @return {@code true} if the file was analyzed, {@code false} if its elements came from the cache
+     */
+    private static boolean analyzes(TokenCache cache, Path file) throws IOException {
+        final int before = analyzed.get();
+        final var store = cache.tokenize(file, COUNTING);
+        Assertions.assertEquals(Files.readString(file), store.source().toString());
+        return analyzed.get() != before;
+    }
+
+    private static List<Path> entries(Path dir) throws IOException {
+        try (final var files = Files.walk(dir)) {
+            return files.filter(f -> f.toString().endsWith(".jlex")).collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    @DisplayName("The elements come from the cache when the file was analyzed by a lexer of the same configuration")
+    void hitAndMiss(@TempDir Path dir) throws IOException {
+        final var cacheDir = dir.resolve("cache");
+        final var file = Files.writeString(dir.resolve("Sample.java"), SAMPLE);
+        final var copy = Files.writeString(dir.resolve("Copy.java"), SAMPLE);
+        final var cache = new TokenCache(cacheDir, Long.MAX_VALUE);
+        Assertions.assertTrue(analyzes(cache, file));
+        Assertions.assertFalse(analyzes(cache, file));
+        Assertions.assertFalse(analyzes(new TokenCache(cacheDir, Long.MAX_VALUE), copy));
+        Assertions.assertEquals(1, entries(cacheDir).size());
+
+        Assertions.assertEquals(describe(COUNTING.tokenize(SAMPLE)), describe(cache.tokenize(file, COUNTING)));
+        Assertions.assertEquals(describe(Lexer.shared(true, true).tokenize(SAMPLE)), describe(cache.tokenize(file, Lexer.shared(true, true))));
+        Assertions.assertEquals(2, entries(cacheDir).size());
+
+        Files.writeString(file, SAMPLE + "\nint a;");
+        Assertions.assertTrue(analyzes(cache, file));
+        Assertions.assertEquals(3, entries(cacheDir).size());
+    }
+
+    @Test
+    @DisplayName("A corrupt entry is analyzed again and replaced")
+    void corruptEntry(@TempDir Path dir) throws IOException {
+        final var cacheDir = dir.resolve("cache");
+        final var file = Files.writeString(dir.resolve("Sample.java"), SAMPLE);
+        final var cache = new TokenCache(cacheDir, Long.MAX_VALUE);
+        Assertions.assertTrue(analyzes(cache, file));
+        Files.writeString(entries(cacheDir).get(0), "corrupt");
+        Assertions.assertTrue(analyzes(cache, file));
+        Assertions.assertFalse(analyzes(cache, file));
+    }
+
+    /**
+     * Set the last modification time of the entries that were modified after the given time.
+     */
+    private static void age(Path cacheDir, long millis) throws IOException {
+        for (final var entry : entries(cacheDir)) {
+            if (Files.getLastModifiedTime(entry).toMillis() > millis) {
+                Files.setLastModifiedTime(entry, FileTime.fromMillis(millis));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("The least recently used entries are evicted first")
+    void leastRecentlyUsedEviction(@TempDir Path dir) throws IOException {
+        final var cacheDir = dir.resolve("cache");
+        final var cache = new TokenCache(cacheDir, Long.MAX_VALUE);
+        final var files = new ArrayList<Path>();
+        for (int i = 0; i < 3; i++) {
+            final var file = Files.writeString(dir.resolve("Sample" + i + ".java"), SAMPLE + "\nint a" + i + ";");
+            files.add(file);
+            Assertions.assertTrue(analyzes(cache, file));
+            age(cacheDir, 1000L * (i + 1));
+        }
+        Assertions.assertFalse(analyzes(cache, files.get(0)));
+        long size = 0;
+        for (final var entry : entries(cacheDir)) {
+            size += Files.size(entry);
+        }
+        new TokenCache(cacheDir, size - 1).evict();
+        Assertions.assertEquals(2, entries(cacheDir).size());
+        Assertions.assertFalse(analyzes(cache, files.get(0)));
+        Assertions.assertFalse(analyzes(cache, files.get(2)));
+        Assertions.assertTrue(analyzes(cache, files.get(1)));
+
+        new TokenCache(cacheDir, 0).evict();
+        Assertions.assertEquals(0, entries(cacheDir).size());
+    }
+
+    @Test
+    @DisplayName("The threads of the JVM can evict from the same cache directory at the same time")
+    void concurrentEviction(@TempDir Path dir) throws Exception {
+        final var cacheDir = dir.resolve("cache");
+        final var threads = new ArrayList<Thread>();
+        final var errors = new ArrayList<Throwable>();
+        for (int t = 0; t < 8; t++) {
+            final var file = Files.writeString(dir.resolve("Sample" + t + ".java"), SAMPLE + "\nint a" + t + ";");
+            final var thread = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 10; i++) {
+                        new TokenCache(cacheDir, Long.MAX_VALUE).tokenize(file, Lexer.shared(true, true));
+                        new TokenCache(cacheDir, 0).evict();
+                    }
+                } catch (Throwable e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (final var thread : threads) {
+            thread.join();
+        }
+        Assertions.assertEquals(List.of(), errors);
+        Assertions.assertEquals(0, entries(cacheDir).size());
+    }
+
+    @Test
+    @DisplayName("A small source file analyzed through the cache is read into the heap")
+    void smallFileIsNotMapped(@TempDir Path dir) throws IOException {
+        final var file = Files.writeString(dir.resolve("Sample.java"), SAMPLE);
+        final var store = new TokenCache(dir.resolve("cache"), Long.MAX_VALUE).tokenize(file, Lexer.shared(true, true));
+        Files.writeString(file, "");
+        Assertions.assertEquals(SAMPLE, store.source().toString());
+        Assertions.assertEquals(describe(Lexer.shared(true, true).tokenize(SAMPLE)), describe(store));
+    }
+
+    @Test
+    @DisplayName("A lexical error in a UTF-8 encoded file is thrown by the lexer and nothing is cached")
+    void lexicalError(@TempDir Path dir) throws IOException {
+        final var cacheDir = dir.resolve("cache");
+        final var file = Files.writeString(dir.resolve("A.java"), "String s = \"\u00e1rv\u00edz;\n");
+        final var cache = new TokenCache(cacheDir, Long.MAX_VALUE);
+        final var expected = Assertions.assertThrows(RuntimeException.class, () -> COUNTING.tokenize(Files.readString(file)));
+        final var e = Assertions.assertThrows(RuntimeException.class, () -> cache.tokenize(file, COUNTING));
+        Assertions.assertEquals(expected.getClass(), e.getClass());
+        Assertions.assertEquals(expected.getMessage(), e.getMessage());
+        Assertions.assertEquals(0, entries(cacheDir).size());
+    }
+
+    @Test
+    @DisplayName("A file that is not UTF-8 encoded is rejected and the maximum size must not be negative")
+    void rejectsInvalid(@TempDir Path dir) throws IOException {
+        final var file = Files.write(dir.resolve("A.java"), new byte[]{'a', (byte) 0xC0, (byte) 0x80});
+        Assertions.assertThrows(IOException.class, () -> new TokenCache(dir.resolve("cache"), Long.MAX_VALUE).tokenize(file, COUNTING));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new TokenCache(dir.resolve("cache"), -1));
+    }
+}
@@ -0,0 +1,73 @@
+package javax0.javalex.lex;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static javax0.javalex.lex.Tokens.SAMPLE;
+import static javax0.javalex.lex.Tokens.UTF8_SAMPLE;
+import static javax0.javalex.lex.Tokens.describe;
+
+public class TestTokenFile {
+
+    @Test
+    @DisplayName("A loaded store has the same source, elements and IDs as the saved one")
+    void roundTrip(@TempDir Path dir) throws IOException {
+        final var file = dir.resolve("sample.jlex");
+        final var large = SAMPLE.repeat(MappedSource.MIN_MAPPED_SIZE / SAMPLE.length() + 1);
+        for (final var source : new String[]{SAMPLE, UTF8_SAMPLE, "", large}) {
+            final var store = new Lexer().commentSensitive().tokenize(source);
+            store.write(file);
+            final var loaded = new Lexer().commentSensitive().load(file);
+            Assertions.assertEquals(source, loaded.source().toString());
+            Assertions.assertEquals(describe(store), describe(loaded));
+            for (int i = 0; i < store.size(); i++) {
+                Assertions.assertEquals(store.getId(i), loaded.getId(i));
+                Assertions.assertEquals(store.getKeyword(i), loaded.getKeyword(i));
+            }
+            Assertions.assertNotSame(store.symbols(), loaded.symbols());
+        }
+    }
+
+    @Test
+    @DisplayName("A small token file is read into the heap, the loaded store does not depend on the file")
+    void smallFileIsNotMapped(@TempDir Path dir) throws IOException {
+        final var file = dir.resolve("sample.jlex");
+        final var store = new Lexer().tokenize(SAMPLE);
+        store.write(file);
+        final var loaded = new Lexer().load(file);
+        Files.writeString(file, "");
+        Assertions.assertEquals(SAMPLE, loaded.source().toString());
+        Assertions.assertEquals(describe(store), describe(loaded));
+    }
+
+    @Test
+    @DisplayName("A store whose elements were modified cannot be saved")
+    void modifiedStore(@TempDir Path dir) {
+        final var store = new Lexer().tokenize(SAMPLE);
+        store.remove(0);
+        Assertions.assertThrows(IllegalStateException.class, () -> store.write(dir.resolve("sample.jlex")));
+    }
+
+    @Test
+    @DisplayName("A file written by a lexer of different sensitivity, a truncated file or another file is rejected")
+    void rejectsInvalid(@TempDir Path dir) throws IOException {
+        final var file = dir.resolve("sample.jlex");
+        new Lexer().commentSensitive().tokenize(SAMPLE).write(file);
+        Assertions.assertThrows(IOException.class, () -> new Lexer().load(file));
+        final var bytes = Files.readAllBytes(file);
+        final var truncated = Files.write(dir.resolve("truncated.jlex"), Arrays.copyOf(bytes, bytes.length - 1));
+        Assertions.assertThrows(IOException.class, () -> new Lexer().commentSensitive().load(truncated));
+        final var header = Files.write(dir.resolve("header.jlex"), Arrays.copyOf(bytes, 6));
+        Assertions.assertThrows(IOException.class, () -> new Lexer().commentSensitive().load(header));
+        final var text = Files.writeString(dir.resolve("text.jlex"), SAMPLE);
+        Assertions.assertThrows(IOException.class, () -> new Lexer().load(text));
+        Assertions.assertThrows(IOException.class, () -> new Lexer().load(dir.resolve("missing.jlex")));
+    }
+}
@@ -0,0 +1,105 @@
+package javax0.javalex.lex;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static javax0.javalex.lex.Tokens.SAMPLE;
+import static javax0.javalex.lex.Tokens.UTF8_SAMPLE;
+import static javax0.javalex.lex.Tokens.describe;
+
+public class TestTokenStore {
+
+    private static void assertEdit(Lexer lexer, String source, int offset, int removedLength, String inserted) {
+        final var edited = lexer.tokenize(source).edit(offset, removedLength, inserted);
+        final var expected = lexer.tokenize(source.substring(0, offset) + inserted + source.substring(offset + removedLength));
+        Assertions.assertEquals(expected.source(), edited.source().toString());
+        Assertions.assertEquals(describe(expected), describe(edited));
+    }
+
+    @Test
+    @DisplayName("Incremental re-lexing after an edit gives the same elements as lexing the edited source")
+    void incrementalEdit() {
+        final var source = "a = 1;\nb = c;\n/* x */ d = \"s\";\ne = \"\"\"\n  t\n  \"\"\";\nf = 1e;\n";
+        for (final var lexer : new Lexer[]{new Lexer(), new Lexer().spaceSensitive().commentSensitive()}) {
+            assertEdit(lexer, source, 0, 0, "/*");
+            assertEdit(lexer, source, 8, 0, "/*");
+            assertEdit(lexer, source, source.indexOf("/*"), 2, "");
+            assertEdit(lexer, source, source.indexOf("\"\"\""), 0, "\"\"\"\n\"\"\"+");
+            assertEdit(lexer, source, source.indexOf("t\n"), 1, "\"\"\"; g = \"\"\"\n");
+            assertEdit(lexer, source, source.indexOf("1e") + 2, 0, "5");
+            assertEdit(lexer, source, source.indexOf("c;"), 1, "cc");
+            assertEdit(lexer, source, 2, 1, "==");
+            assertEdit(lexer, source, source.length(), 0, "g");
+            assertEdit(lexer, source, 0, source.length(), "");
+        }
+    }
+
+    @Test
+    @DisplayName("A store whose elements were modified does not refer to the source any more")
+    void modifiedStore() {
+        final var store = new Lexer().tokenize("a b");
+        store.remove(0);
+        Assertions.assertEquals(1, store.size());
+        Assertions.assertEquals("b", store.getLexeme(0));
+        Assertions.assertThrows(IllegalStateException.class, () -> store.edit(0, 0, "c"));
+        Assertions.assertThrows(IllegalStateException.class, store::offHeap);
+    }
+
+    @Test
+    @DisplayName("A store whose element objects were changed cannot be copied off-heap")
+    void changedElementIsNotCopied() {
+        final var store = new Lexer().tokenize("a b");
+        store.get(0).getLexeme();
+        store.offHeap().close();
+        store.get(0).setLexeme("c");
+        Assertions.assertThrows(IllegalStateException.class, store::offHeap);
+    }
+
+    @Test
+    @DisplayName("A store whose element objects were changed cannot be re-analyzed incrementally")
+    void changedElementIsNotEdited() {
+        final var store = new Lexer().tokenize("a b");
+        store.get(1).getLexeme();
+        Assertions.assertEquals("a c", store.edit(2, 1, "c").source().toString());
+        store.get(1).setLexeme("c");
+        Assertions.assertThrows(IllegalStateException.class, () -> store.edit(0, 0, "d"));
+    }
+
+    @Test
+    @DisplayName("Off-heap stores give the same elements as the heap store and they are read only")
+    void offHeapStore() {
+        for (final var source : new String[]{SAMPLE, UTF8_SAMPLE, ""}) {
+            final var store = new Lexer().commentSensitive().tokenize(source);
+            try (final var offHeap = store.offHeap()) {
+                Assertions.assertTrue(offHeap.isOffHeap());
+                Assertions.assertFalse(store.isOffHeap());
+                Assertions.assertSame(offHeap, offHeap.offHeap());
+                Assertions.assertSame(store.symbols(), offHeap.symbols());
+                Assertions.assertEquals(source, offHeap.source().toString());
+                Assertions.assertEquals(describe(store), describe(offHeap));
+                for (int i = 0; i < store.size(); i++) {
+                    Assertions.assertEquals(store.getId(i), offHeap.getId(i));
+                    Assertions.assertEquals(store.getKeyword(i), offHeap.getKeyword(i));
+                }
+                Assertions.assertThrows(UnsupportedOperationException.class, () -> offHeap.removeRange(0, 0));
+                Assertions.assertThrows(UnsupportedOperationException.class, () -> offHeap.add(0, new LexicalElement.Identifier("a")));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("An off-heap store cannot be used after it was closed, closing a heap store does nothing")
+    void closedOffHeapStore() {
+        final var store = new Lexer().tokenize(SAMPLE);
+        final var offHeap = store.offHeap();
+        offHeap.close();
+        Assertions.assertThrows(IllegalStateException.class, () -> offHeap.getType(0));
+        Assertions.assertThrows(IllegalStateException.class, () -> offHeap.get(0));
+        Assertions.assertThrows(IllegalStateException.class, offHeap::offHeap);
+        offHeap.close();
+        store.close();
+        Assertions.assertEquals(SAMPLE, store.source().toString());
+        Assertions.assertEquals("package", store.getLexeme(0));
+    }
+}
@@ -0,0 +1,59 @@
+package javax0.javalex.lex;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static javax0.javalex.lex.Tokens.SAMPLE;
+import static javax0.javalex.lex.Tokens.UTF8_SAMPLE;
+
+public class TestUtf8Source {
+
+    private static byte[] withBom(byte[] bytes) {
+        final var withBom = new byte[bytes.length + 3];
+        withBom[0] = (byte) 0xEF;
+        withBom[1] = (byte) 0xBB;
+        withBom[2] = (byte) 0xBF;
+        System.arraycopy(bytes, 0, withBom, 3, bytes.length);
+        return withBom;
+    }
+
+    @Test
+    @DisplayName("ASCII and multibyte UTF-8 sources are decoded and the byte order mark is skipped")
+    void decodes() {
+        for (final var source : new String[]{SAMPLE, UTF8_SAMPLE, ""}) {
+            final var bytes = source.getBytes(StandardCharsets.UTF_8);
+            Assertions.assertEquals(source, Utf8Source.of(bytes).toString());
+            Assertions.assertEquals(source, Utf8Source.of(withBom(bytes)).toString());
+        }
+    }
+
+    @Test
+    @DisplayName("An ASCII source is a view of the bytes, and the position of the buffer is not changed")
+    void asciiView() {
+        final var bytes = "abc".getBytes(StandardCharsets.US_ASCII);
+        final var buffer = ByteBuffer.wrap(bytes);
+        final var source = Utf8Source.of(buffer);
+        Assertions.assertEquals(0, buffer.position());
+        bytes[1] = 'x';
+        Assertions.assertEquals("axc", source.toString());
+        Assertions.assertEquals("xc", source.subSequence(1, 3).toString());
+    }
+
+    @Test
+    @DisplayName("Invalid UTF-8 is rejected")
+    void rejectsInvalid() {
+        for (final var bytes : new byte[][]{
+            {'a', (byte) 0xC0, (byte) 0x80},
+            {'a', (byte) 0xE2, (byte) 0x82},
+            {'a', (byte) 0x80},
+            {(byte) 0xF5, (byte) 0x80, (byte) 0x80, (byte) 0x80},
+        }) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> Utf8Source.of(bytes));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> new Lexer().tokenize(ByteBuffer.wrap(bytes)));
+        }
+    }
+}
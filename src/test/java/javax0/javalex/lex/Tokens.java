@@ -0,0 +1,53 @@
+package javax0.javalex.lex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Helpers to compare the results of the different ways of lexing the same source.
+ */
+final class Tokens {
+    /**
+     * A source that has an element of every type, including a multi-line comment and a text block.
+     */
+    static final String SAMPLE = "/* license\n * header\n */\n" +
+        "package a.b;\n" +
+        "class A {\n" +
+        "    // comment\n" +
+        "    String s = \"a\\tb\" + '\\n' + \"\"\"\n        text block\n        \"\"\";\n" +
+        "    long l = 0x1FL >>> 2;\n" +
+        "    double d = 1.5e+3f;\n" +
+        "}\n";
+
+    /**
+     * The same as {@link #SAMPLE} with non-ASCII characters in the text block.
+     */
+    static final String UTF8_SAMPLE = SAMPLE.replace("text block", "sz\u00f6veg \u00e1rv\u00edzt\u0171r\u0151 \ud801\udc00");
+
+    private Tokens() {
+    }
+
+    /**
+     * @return the type and the full lexeme of each element
+     */
+    static List<String> describe(javax0.javalex.LexicalElement[] elements) {
+        return describe(Arrays.asList(elements));
+    }
+
+    static List<String> describe(List<? extends javax0.javalex.LexicalElement> elements) {
+        final var description = new ArrayList<String>();
+        for (final var element : elements) {
+            description.add(element.getType().name() + "[" + element.getFullLexeme() + "]");
+        }
+        return description;
+    }
+
+    static List<String> describe(TokenStore store) {
+        final var elements = new ArrayList<javax0.javalex.LexicalElement>();
+        for (int i = 0; i < store.size(); i++) {
+            elements.add(store.get(i));
+        }
+        return describe(elements);
+    }
+}